@@ -0,0 +1,72 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.BaseContentProvider;
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.TableConfig;
+import com.ijoic.wrapprovider.core.BaseProviderHelper;
+import com.ijoic.wrapprovider.core.ProviderHelper;
+
+/**
+ * 基准测试-并发读写内容提供器
+ *
+ * <p>数据表"items"包含"_id"及文本列"title"、"body"。数据库配置在构造函数中读取，创建前设置{@link #walEnabled}。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class ConcurrentBenchProvider extends BaseContentProvider {
+
+  static final String AUTHORITY = "com.ijoic.wrapprovider.benchmark.concurrent";
+  static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY + "/items");
+
+  static volatile boolean walEnabled;
+
+  /**
+   * 获取数据库名称
+   *
+   * @param walEnabled 是否启用WAL
+   * @return 数据库名称
+   */
+  @NonNull
+  static String getDatabaseName(boolean walEnabled) {
+    return walEnabled ? "bench_concurrent_wal.db" : "bench_concurrent.db";
+  }
+
+  @NonNull
+  @Override
+  protected ProviderHelper genProviderHelper() {
+    return new ItemTableHelper();
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = AUTHORITY;
+    databaseConfig.databaseName = getDatabaseName(walEnabled);
+    databaseConfig.databaseVersion = 1;
+    databaseConfig.writeAheadLoggingEnabled = walEnabled;
+  }
+
+  private static class ItemTableHelper extends BaseProviderHelper {
+
+    @Override
+    protected void onInitTableConfig(TableConfig tableConfig) {
+      tableConfig.tableName = "items";
+      tableConfig.itemSet = "items";
+      tableConfig.contentUri = CONTENT_URI;
+      tableConfig.contentType = "vnd.android.cursor.dir/vnd.benchmark.items";
+      tableConfig.contentItemType = "vnd.android.cursor.item/vnd.benchmark.items";
+      tableConfig.defaultSortOrder = "_id ASC";
+      tableConfig.hackColumn = "title";
+      tableConfig.columns = new String[] {"_id", "title", "body"};
+    }
+
+    @Override
+    public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+      db.execSQL("CREATE TABLE items (_id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, body TEXT);");
+    }
+  }
+}
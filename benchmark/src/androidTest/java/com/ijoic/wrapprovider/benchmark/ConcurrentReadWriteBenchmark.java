@@ -0,0 +1,173 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.pm.ProviderInfo;
+import android.database.Cursor;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * 并发读写-基准测试
+ *
+ * <p>一个线程持续插入，若干线程同时按ID查询，分别统计回滚日志与WAL下的读写吞吐量。
+ * Robolectric将全部SQLite调用串行到同一线程，无法体现日志模式对并发的影响，因此作为设备测试运行：
+ * <code>./gradlew :benchmark:connectedAndroidTest</code>，结果以JSON行输出到logcat（标签"Benchmark"）。
+ * JVM测试中的并发覆盖见SingleTableBenchmark#concurrentReadWrite，仅衡量提供器自身的同步开销。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrentReadWriteBenchmark {
+
+  private static final String TAG = "Benchmark";
+  private static final int SEED_ROWS = 2000;
+  private static final int READER_COUNT = 3;
+  private static final long WARMUP_MILLIS = 500;
+  private static final long MEASURE_MILLIS = 3000;
+
+  @Test
+  public void rollbackJournal() throws Exception {
+    measure(false);
+  }
+
+  @Test
+  public void writeAheadLogging() throws Exception {
+    measure(true);
+  }
+
+  private void measure(boolean walEnabled) throws Exception {
+    final ConcurrentBenchProvider provider = createProvider(walEnabled);
+    seed(provider);
+
+    final AtomicBoolean measuring = new AtomicBoolean();
+    final AtomicBoolean stopped = new AtomicBoolean();
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final long[] readCounts = new long[READER_COUNT];
+    final long[] writeCount = new long[1];
+    final CountDownLatch finished = new CountDownLatch(READER_COUNT + 1);
+    Thread[] threads = new Thread[READER_COUNT + 1];
+
+    threads[0] = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          ContentValues values = createValues(0);
+
+          while (!stopped.get()) {
+            provider.insert(ConcurrentBenchProvider.CONTENT_URI, values);
+
+            if (measuring.get()) {
+              ++writeCount[0];
+            }
+          }
+        } catch (Throwable e) {
+          error.compareAndSet(null, e);
+        } finally {
+          finished.countDown();
+        }
+      }
+    }, "bench-writer");
+
+    for (int i = 0; i < READER_COUNT; ++i) {
+      final int readerIndex = i;
+
+      threads[i + 1] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            int iteration = readerIndex;
+
+            while (!stopped.get()) {
+              consume(provider.query(ContentUris.withAppendedId(ConcurrentBenchProvider.CONTENT_URI, iteration % SEED_ROWS + 1), null, null, null, null));
+              iteration += READER_COUNT;
+
+              if (measuring.get()) {
+                ++readCounts[readerIndex];
+              }
+            }
+          } catch (Throwable e) {
+            error.compareAndSet(null, e);
+          } finally {
+            finished.countDown();
+          }
+        }
+      }, "bench-reader-" + i);
+    }
+
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    Thread.sleep(WARMUP_MILLIS);
+    measuring.set(true);
+    long startTime = System.nanoTime();
+    Thread.sleep(MEASURE_MILLIS);
+    measuring.set(false);
+    double seconds = (System.nanoTime() - startTime) / 1e9;
+    stopped.set(true);
+    finished.await();
+    assertNull(error.get());
+
+    long readCount = 0;
+
+    for (long count : readCounts) {
+      readCount += count;
+    }
+    Log.i(TAG, String.format(Locale.US, "{\"benchmark\":\"concurrent.readWrite\",\"params\":{\"wal\":%b,\"readers\":%d},\"readsPerSecond\":%.1f,\"writesPerSecond\":%.1f}",
+      walEnabled, READER_COUNT, readCount / seconds, writeCount[0] / seconds));
+  }
+
+  private static ConcurrentBenchProvider createProvider(boolean walEnabled) {
+    Context context = InstrumentationRegistry.getTargetContext();
+    context.deleteDatabase(ConcurrentBenchProvider.getDatabaseName(walEnabled));
+    ConcurrentBenchProvider.walEnabled = walEnabled;
+
+    ProviderInfo info = new ProviderInfo();
+    info.authority = ConcurrentBenchProvider.AUTHORITY;
+    ConcurrentBenchProvider provider = new ConcurrentBenchProvider();
+    provider.attachInfo(context, info);
+    return provider;
+  }
+
+  private static void seed(ConcurrentBenchProvider provider) {
+    ContentValues[] values = new ContentValues[SEED_ROWS];
+
+    for (int i = 0; i < SEED_ROWS; ++i) {
+      values[i] = createValues(i);
+    }
+    provider.bulkInsert(ConcurrentBenchProvider.CONTENT_URI, values);
+  }
+
+  private static ContentValues createValues(int seed) {
+    ContentValues values = new ContentValues();
+    values.put("title", "title-" + seed);
+    values.put("body", "body-value-" + seed);
+    return values;
+  }
+
+  private static void consume(Cursor c) {
+    if (c == null) {
+      return;
+    }
+    try {
+      while (c.moveToNext()) {
+        c.getString(1);
+      }
+    } finally {
+      c.close();
+    }
+  }
+}
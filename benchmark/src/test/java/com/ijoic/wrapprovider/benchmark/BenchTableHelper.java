@@ -0,0 +1,93 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+import com.ijoic.wrapprovider.core.BaseProviderHelper;
+
+/**
+ * 基准测试-数据表帮助器
+ *
+ * <p>数据表"t&lt;index&gt;"包含"_id"及若干文本列"c&lt;n&gt;"。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+class BenchTableHelper extends BaseProviderHelper {
+
+  private static int pendingIndex;
+
+  /**
+   * 创建数据表帮助器
+   *
+   * <p>{@link #onInitTableConfig(TableConfig)}在父类构造函数中调用，因此通过静态字段传递表序号。</p>
+   *
+   * @param index 表序号
+   * @return 数据表帮助器
+   */
+  @NonNull
+  static synchronized BenchTableHelper create(int index) {
+    pendingIndex = index;
+    return new BenchTableHelper();
+  }
+
+  /**
+   * 获取数据表URI
+   *
+   * @param index 表序号
+   * @return 数据表URI
+   */
+  @NonNull
+  static Uri getContentUri(int index) {
+    return Uri.parse("content://" + BenchmarkConfig.AUTHORITY + "/t" + index);
+  }
+
+  /**
+   * 获取数据列名
+   *
+   * @param columnCount 列数量
+   * @return 数据列名（不含"_id"）
+   */
+  @NonNull
+  static String[] getDataColumns(int columnCount) {
+    String[] columns = new String[columnCount];
+
+    for (int i = 0; i < columnCount; ++i) {
+      columns[i] = "c" + i;
+    }
+    return columns;
+  }
+
+  @Override
+  protected void onInitTableConfig(TableConfig tableConfig) {
+    int index = pendingIndex;
+    String[] dataColumns = getDataColumns(BenchmarkConfig.columnCount);
+    String[] columns = new String[dataColumns.length + 1];
+    columns[0] = "_id";
+    System.arraycopy(dataColumns, 0, columns, 1, dataColumns.length);
+
+    tableConfig.tableName = "t" + index;
+    tableConfig.itemSet = "t" + index;
+    tableConfig.contentUri = getContentUri(index);
+    tableConfig.contentType = "vnd.android.cursor.dir/vnd.benchmark.t" + index;
+    tableConfig.contentItemType = "vnd.android.cursor.item/vnd.benchmark.t" + index;
+    tableConfig.defaultSortOrder = "_id ASC";
+    tableConfig.hackColumn = dataColumns[0];
+    tableConfig.columns = columns;
+  }
+
+  @Override
+  public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+    TableConfig tableConfig = getTableConfig();
+    StringBuilder sql = new StringBuilder(128);
+    sql.append("CREATE TABLE ").append(tableConfig.tableName).append(" (_id INTEGER PRIMARY KEY AUTOINCREMENT");
+
+    for (int i = 1; i < tableConfig.columns.length; ++i) {
+      sql.append(", ").append(tableConfig.columns[i]).append(" TEXT");
+    }
+    sql.append(");");
+    db.execSQL(sql.toString());
+  }
+}
@@ -0,0 +1,117 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基准测试-测量器
+ *
+ * <p>先执行预热轮次，再执行测量轮次；每轮执行若干次操作，按轮记录耗时并折算为单次操作耗时。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+final class Benchmark {
+
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURE_ROUNDS = 10;
+
+  /**
+   * 基准操作
+   */
+  interface Operation {
+    /**
+     * 执行一次操作
+     *
+     * @param iteration 操作序号
+     */
+    void run(int iteration) throws Exception;
+  }
+
+  private Benchmark() {
+  }
+
+  /**
+   * 测量操作耗时
+   *
+   * @param name 基准名称
+   * @param params 基准参数
+   * @param operationsPerRound 每轮操作次数
+   * @param operation 基准操作
+   * @return 测量结果
+   * @throws Exception 操作失败
+   */
+  @NonNull
+  static Result measure(@NonNull String name, @NonNull Map<String, Object> params, int operationsPerRound, @NonNull Operation operation) throws Exception {
+    int iteration = 0;
+
+    for (int round = 0; round < WARMUP_ROUNDS; ++round) {
+      for (int i = 0; i < operationsPerRound; ++i) {
+        operation.run(iteration++);
+      }
+    }
+    double[] roundNanosPerOp = new double[MEASURE_ROUNDS];
+
+    for (int round = 0; round < MEASURE_ROUNDS; ++round) {
+      long startTime = System.nanoTime();
+
+      for (int i = 0; i < operationsPerRound; ++i) {
+        operation.run(iteration++);
+      }
+      roundNanosPerOp[round] = (double) (System.nanoTime() - startTime) / operationsPerRound;
+    }
+    Result result = new Result(name, params, roundNanosPerOp);
+    BenchmarkReporter.report(result);
+    return result;
+  }
+
+  /**
+   * 构建基准参数
+   *
+   * @param keyValues 参数键值对
+   * @return 基准参数
+   */
+  @NonNull
+  static Map<String, Object> params(Object... keyValues) {
+    Map<String, Object> params = new LinkedHashMap<>();
+
+    for (int i = 0; i + 1 < keyValues.length; i += 2) {
+      params.put(String.valueOf(keyValues[i]), keyValues[i + 1]);
+    }
+    return params;
+  }
+
+  /**
+   * 测量结果
+   */
+  static final class Result {
+    final String name;
+    final Map<String, Object> params;
+    final double meanNanosPerOp;
+    final double medianNanosPerOp;
+    final double minNanosPerOp;
+    final double maxNanosPerOp;
+    final double opsPerSecond;
+
+    private Result(@NonNull String name, @NonNull Map<String, Object> params, @NonNull double[] roundNanosPerOp) {
+      this.name = name;
+      this.params = params;
+
+      double[] sorted = roundNanosPerOp.clone();
+      Arrays.sort(sorted);
+      double total = 0;
+
+      for (double value : sorted) {
+        total += value;
+      }
+      meanNanosPerOp = total / sorted.length;
+      medianNanosPerOp = sorted[sorted.length / 2];
+      minNanosPerOp = sorted[0];
+      maxNanosPerOp = sorted[sorted.length - 1];
+      opsPerSecond = meanNanosPerOp > 0 ? 1e9 / meanNanosPerOp : 0;
+    }
+  }
+}
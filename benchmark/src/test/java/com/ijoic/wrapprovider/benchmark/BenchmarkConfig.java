@@ -0,0 +1,20 @@
+package com.ijoic.wrapprovider.benchmark;
+
+/**
+ * 基准测试-配置
+ *
+ * <p>内容提供器由Robolectric通过无参构造函数创建，创建前在此设置表数量及列数量。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+final class BenchmarkConfig {
+
+  static final String AUTHORITY = "com.ijoic.wrapprovider.benchmark";
+
+  static volatile int tableCount = 1;
+  static volatile int columnCount = 4;
+
+  private BenchmarkConfig() {
+  }
+}
@@ -0,0 +1,84 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 基准测试-结果输出
+ *
+ * <p>每个结果以一行JSON追加写入系统属性"benchmark.output"指定的文件（JSON Lines），
+ * 便于不同版本之间比对；未指定时仅输出至标准输出。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+final class BenchmarkReporter {
+
+  private BenchmarkReporter() {
+  }
+
+  /**
+   * 输出测量结果
+   *
+   * @param result 测量结果
+   */
+  static synchronized void report(@NonNull Benchmark.Result result) {
+    String line = toJson(result);
+    System.out.println(line);
+
+    String output = System.getProperty("benchmark.output");
+
+    if (output == null || output.isEmpty()) {
+      return;
+    }
+    File file = new File(output);
+    File parent = file.getParentFile();
+
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      throw new IllegalStateException("create output dir failed: " + parent);
+    }
+    try {
+      Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8");
+
+      try {
+        writer.write(line);
+        writer.write('\n');
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("write benchmark result failed: " + file, e);
+    }
+  }
+
+  @NonNull
+  private static String toJson(@NonNull Benchmark.Result result) {
+    StringBuilder json = new StringBuilder(256);
+    json.append("{\"benchmark\":\"").append(result.name).append("\",\"params\":{");
+    boolean first = true;
+
+    for (Map.Entry<String, Object> entry : result.params.entrySet()) {
+      json.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":");
+      Object value = entry.getValue();
+
+      if (value instanceof Number || value instanceof Boolean) {
+        json.append(value);
+      } else {
+        json.append('"').append(value).append('"');
+      }
+      first = false;
+    }
+    json.append("},\"unit\":\"ns/op\"");
+    json.append(String.format(Locale.US, ",\"mean\":%.1f,\"median\":%.1f,\"min\":%.1f,\"max\":%.1f,\"opsPerSecond\":%.1f",
+      result.meanNanosPerOp, result.medianNanosPerOp, result.minNanosPerOp, result.maxNanosPerOp, result.opsPerSecond));
+    json.append(",\"timestamp\":").append(System.currentTimeMillis()).append('}');
+    return json.toString();
+  }
+}
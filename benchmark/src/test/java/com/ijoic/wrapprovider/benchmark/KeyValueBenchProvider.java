@@ -0,0 +1,45 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.BaseContentProvider;
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.TableConfig;
+import com.ijoic.wrapprovider.core.KeyValueProviderHelper;
+import com.ijoic.wrapprovider.core.ProviderHelper;
+
+/**
+ * 基准测试-键值内容提供器
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class KeyValueBenchProvider extends BaseContentProvider {
+
+  static final Uri CONTENT_URI = Uri.parse("content://" + BenchmarkConfig.AUTHORITY + "/settings");
+
+  @NonNull
+  @Override
+  protected ProviderHelper genProviderHelper() {
+    return new KeyValueProviderHelper() {
+      @Override
+      protected void onInitTableConfig(TableConfig tableConfig) {
+        super.onInitTableConfig(tableConfig);
+        tableConfig.tableName = "settings";
+        tableConfig.itemSet = "settings";
+        tableConfig.contentUri = CONTENT_URI;
+        tableConfig.contentType = "vnd.android.cursor.dir/vnd.benchmark.settings";
+        tableConfig.contentItemType = "vnd.android.cursor.item/vnd.benchmark.settings";
+        tableConfig.defaultSortOrder = "_id ASC";
+      }
+    };
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = BenchmarkConfig.AUTHORITY;
+    databaseConfig.databaseName = "bench_kv.db";
+    databaseConfig.databaseVersion = 1;
+  }
+}
@@ -0,0 +1,107 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.os.Bundle;
+
+import com.ijoic.wrapprovider.core.KeyValueProviderHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Locale;
+
+/**
+ * 键值内容提供器-基准测试
+ *
+ * <p>对比通过call()读写单个键与通过Cursor查询单个键的耗时，{@link #getSpeedup()}报告单键读取的加速比及5倍目标。
+ * 耗时受运行环境影响，仅报告不校验；键值提供器的行为由lib.wrapprovider中的测试覆盖。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class KeyValueBenchmark {
+
+  private static final int OPERATIONS_PER_ROUND = 1000;
+  private static final int SEED_KEYS = 500;
+  private static final double TARGET_GET_SPEEDUP = 5.0;
+
+  private KeyValueBenchProvider provider;
+  private String contentUriText;
+
+  @Before
+  public void setUp() {
+    provider = Robolectric.buildContentProvider(KeyValueBenchProvider.class).create(BenchmarkConfig.AUTHORITY).get();
+    contentUriText = KeyValueBenchProvider.CONTENT_URI.toString();
+    Bundle entries = new Bundle();
+
+    for (int i = 0; i < SEED_KEYS; ++i) {
+      entries.putString("key" + i, "value" + i);
+    }
+    Bundle extras = new Bundle();
+    extras.putBundle(KeyValueProviderHelper.EXTRA_ENTRIES, entries);
+    provider.call(KeyValueProviderHelper.METHOD_PUT_MANY, contentUriText, extras);
+  }
+
+  @Test
+  public void getByCall() throws Exception {
+    measureGetByCall();
+  }
+
+  @Test
+  public void getByCursor() throws Exception {
+    measureGetByCursor();
+  }
+
+  /**
+   * 单键读取加速比，目标为call()路径的中位耗时不超过Cursor路径的五分之一
+   */
+  @Test
+  public void getSpeedup() throws Exception {
+    Benchmark.Result cursorResult = measureGetByCursor();
+    Benchmark.Result callResult = measureGetByCall();
+    double speedup = cursorResult.medianNanosPerOp / callResult.medianNanosPerOp;
+    System.out.println(String.format(Locale.US, "{\"benchmark\":\"kv.getSpeedup\",\"speedup\":%.2f,\"target\":%.1f,\"metTarget\":%b}",
+      speedup, TARGET_GET_SPEEDUP, speedup >= TARGET_GET_SPEEDUP));
+  }
+
+  @Test
+  public void putByCall() throws Exception {
+    Benchmark.measure("kv.putByCall", Benchmark.params("keys", SEED_KEYS), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        Bundle extras = new Bundle();
+        extras.putString(KeyValueProviderHelper.EXTRA_KEY, "key" + iteration % SEED_KEYS);
+        extras.putString(KeyValueProviderHelper.EXTRA_VALUE, "value" + iteration);
+        provider.call(KeyValueProviderHelper.METHOD_PUT, contentUriText, extras);
+      }
+    });
+  }
+
+  private Benchmark.Result measureGetByCall() throws Exception {
+    return Benchmark.measure("kv.getByCall", Benchmark.params("keys", SEED_KEYS), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        Bundle extras = new Bundle();
+        extras.putString(KeyValueProviderHelper.EXTRA_KEY, "key" + iteration % SEED_KEYS);
+        provider.call(KeyValueProviderHelper.METHOD_GET, contentUriText, extras).getString(KeyValueProviderHelper.EXTRA_VALUE);
+      }
+    });
+  }
+
+  private Benchmark.Result measureGetByCursor() throws Exception {
+    final String[] projection = {KeyValueProviderHelper.COLUMN_VALUE};
+    final String selection = KeyValueProviderHelper.COLUMN_NAME + "=?";
+
+    return Benchmark.measure("kv.getByCursor", Benchmark.params("keys", SEED_KEYS), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        SingleTableBenchmark.consume(provider.query(KeyValueBenchProvider.CONTENT_URI, projection, selection, new String[] {"key" + iteration % SEED_KEYS}, null));
+      }
+    });
+  }
+}
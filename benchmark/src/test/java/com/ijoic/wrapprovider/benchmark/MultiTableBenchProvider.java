@@ -0,0 +1,34 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.MultiTableContentProvider;
+import com.ijoic.wrapprovider.core.ProviderHelper;
+
+/**
+ * 基准测试-多表内容提供器
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class MultiTableBenchProvider extends MultiTableContentProvider {
+
+  @NonNull
+  @Override
+  protected ProviderHelper[] genProviderHelperList() {
+    ProviderHelper[] helpers = new ProviderHelper[BenchmarkConfig.tableCount];
+
+    for (int i = 0; i < helpers.length; ++i) {
+      helpers[i] = BenchTableHelper.create(i);
+    }
+    return helpers;
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = BenchmarkConfig.AUTHORITY;
+    databaseConfig.databaseName = "bench_multi.db";
+    databaseConfig.databaseVersion = 1;
+  }
+}
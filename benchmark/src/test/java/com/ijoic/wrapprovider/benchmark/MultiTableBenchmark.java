@@ -0,0 +1,103 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 多表内容提供器-基准测试
+ *
+ * <p>操作均指向最后一张数据表，测量URI匹配与帮助器分发随表数量的变化。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class MultiTableBenchmark {
+
+  private static final int OPERATIONS_PER_ROUND = 500;
+  private static final int SEED_ROWS = 1000;
+
+  private final int tableCount;
+  private MultiTableBenchProvider provider;
+  private Uri contentUri;
+
+  @ParameterizedRobolectricTestRunner.Parameters(name = "tables={0}")
+  public static Collection<Object[]> parameters() {
+    return Arrays.asList(new Object[][] {{1}, {8}, {32}, {64}});
+  }
+
+  public MultiTableBenchmark(int tableCount) {
+    this.tableCount = tableCount;
+  }
+
+  @Before
+  public void setUp() {
+    BenchmarkConfig.tableCount = tableCount;
+    BenchmarkConfig.columnCount = 4;
+    provider = Robolectric.buildContentProvider(MultiTableBenchProvider.class).create(BenchmarkConfig.AUTHORITY).get();
+    contentUri = BenchTableHelper.getContentUri(tableCount - 1);
+  }
+
+  @Test
+  public void uriMatch() throws Exception {
+    final Uri itemUri = ContentUris.withAppendedId(contentUri, 1);
+
+    Benchmark.measure("multi.getType", Benchmark.params("tables", tableCount), OPERATIONS_PER_ROUND * 10, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        provider.getType(itemUri);
+      }
+    });
+  }
+
+  @Test
+  public void insert() throws Exception {
+    final ContentValues values = createValues(0);
+
+    Benchmark.measure("multi.insert", Benchmark.params("tables", tableCount), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        provider.insert(contentUri, values);
+      }
+    });
+  }
+
+  @Test
+  public void queryItem() throws Exception {
+    ContentValues[] values = new ContentValues[SEED_ROWS];
+
+    for (int i = 0; i < SEED_ROWS; ++i) {
+      values[i] = createValues(i);
+    }
+    provider.bulkInsert(contentUri, values);
+
+    Benchmark.measure("multi.queryItem", Benchmark.params("tables", tableCount), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        Uri itemUri = ContentUris.withAppendedId(contentUri, iteration % SEED_ROWS + 1);
+        SingleTableBenchmark.consume(provider.query(itemUri, null, null, null, null));
+      }
+    });
+  }
+
+  private ContentValues createValues(int seed) {
+    ContentValues values = new ContentValues();
+
+    for (String column : BenchTableHelper.getDataColumns(4)) {
+      values.put(column, column + "-value-" + seed);
+    }
+    return values;
+  }
+}
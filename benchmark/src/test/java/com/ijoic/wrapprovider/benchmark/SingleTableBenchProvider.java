@@ -0,0 +1,29 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.BaseContentProvider;
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.core.ProviderHelper;
+
+/**
+ * 基准测试-单表内容提供器
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class SingleTableBenchProvider extends BaseContentProvider {
+
+  @NonNull
+  @Override
+  protected ProviderHelper genProviderHelper() {
+    return BenchTableHelper.create(0);
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = BenchmarkConfig.AUTHORITY;
+    databaseConfig.databaseName = "bench_single.db";
+    databaseConfig.databaseVersion = 1;
+  }
+}
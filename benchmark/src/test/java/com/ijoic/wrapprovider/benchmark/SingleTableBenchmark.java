@@ -0,0 +1,230 @@
+package com.ijoic.wrapprovider.benchmark;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.Robolectric;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 单表内容提供器-基准测试
+ *
+ * <p>运行：<code>./gradlew :benchmark:testDebugUnitTest</code>，结果写入
+ * <code>benchmark/build/benchmark-results/results.json</code>。</p>
+ *
+ * <p>Robolectric将全部SQLite调用串行到同一线程，日志模式不影响结果，因此不区分WAL；
+ * {@link #concurrentReadWrite()}衡量多线程同时调用时提供器自身的同步开销，
+ * 数据库层面的并发读写见设备测试ConcurrentReadWriteBenchmark。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class SingleTableBenchmark {
+
+  private static final int OPERATIONS_PER_ROUND = 200;
+  private static final int BULK_SIZE = 100;
+  private static final int PAGE_SIZE = 50;
+  private static final int SEED_ROWS = 5000;
+  private static final int READER_COUNT = 3;
+
+  private final int columnCount;
+  private SingleTableBenchProvider provider;
+  private Uri contentUri;
+
+  @ParameterizedRobolectricTestRunner.Parameters(name = "columns={0}")
+  public static Collection<Object[]> parameters() {
+    return Arrays.asList(new Object[][] {{4}, {16}});
+  }
+
+  public SingleTableBenchmark(int columnCount) {
+    this.columnCount = columnCount;
+  }
+
+  @Before
+  public void setUp() {
+    BenchmarkConfig.tableCount = 1;
+    BenchmarkConfig.columnCount = columnCount;
+    provider = Robolectric.buildContentProvider(SingleTableBenchProvider.class).create(BenchmarkConfig.AUTHORITY).get();
+    contentUri = BenchTableHelper.getContentUri(0);
+  }
+
+  @Test
+  public void insert() throws Exception {
+    final ContentValues values = createValues(0);
+
+    Benchmark.measure("single.insert", params(), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        provider.insert(contentUri, values);
+      }
+    });
+  }
+
+  @Test
+  public void bulkInsert() throws Exception {
+    final ContentValues[] values = new ContentValues[BULK_SIZE];
+
+    for (int i = 0; i < BULK_SIZE; ++i) {
+      values[i] = createValues(i);
+    }
+    Benchmark.measure("single.bulkInsert", params("rowsPerOp", BULK_SIZE), 20, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        provider.bulkInsert(contentUri, values);
+      }
+    });
+  }
+
+  @Test
+  public void queryItem() throws Exception {
+    seed();
+
+    Benchmark.measure("single.queryItem", params(), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        Uri itemUri = ContentUris.withAppendedId(contentUri, iteration % SEED_ROWS + 1);
+        consume(provider.query(itemUri, null, null, null, null));
+      }
+    });
+  }
+
+  @Test
+  public void queryPage() throws Exception {
+    seed();
+
+    Benchmark.measure("single.queryPage", params("rowsPerOp", PAGE_SIZE), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        Uri pageUri = contentUri.buildUpon().appendQueryParameter("limit", String.valueOf(PAGE_SIZE)).build();
+        consume(provider.query(pageUri, null, null, null, null));
+      }
+    });
+  }
+
+  @Test
+  public void updateItem() throws Exception {
+    seed();
+    final ContentValues values = createValues(1);
+
+    Benchmark.measure("single.updateItem", params(), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        provider.update(ContentUris.withAppendedId(contentUri, iteration % SEED_ROWS + 1), values, null, null);
+      }
+    });
+  }
+
+  @Test
+  public void deleteItem() throws Exception {
+    seed();
+
+    Benchmark.measure("single.deleteItem", params(), OPERATIONS_PER_ROUND, new Benchmark.Operation() {
+      @Override
+      public void run(int iteration) {
+        provider.delete(ContentUris.withAppendedId(contentUri, iteration + 1), null, null);
+      }
+    });
+  }
+
+  /**
+   * 并发读写：每次操作由一个线程插入、{@link #READER_COUNT}个线程按ID查询，同时提交并等待全部完成
+   */
+  @Test
+  public void concurrentReadWrite() throws Exception {
+    seed();
+    final ContentValues values = createValues(0);
+    final ExecutorService executor = Executors.newFixedThreadPool(READER_COUNT + 1);
+
+    try {
+      Benchmark.measure("single.concurrentReadWrite", params("readers", READER_COUNT, "writers", 1), OPERATIONS_PER_ROUND / 4, new Benchmark.Operation() {
+        @Override
+        public void run(final int iteration) throws Exception {
+          List<Callable<Void>> tasks = new ArrayList<>(READER_COUNT + 1);
+          tasks.add(new Callable<Void>() {
+            @Override
+            public Void call() {
+              provider.insert(contentUri, values);
+              return null;
+            }
+          });
+
+          for (int i = 0; i < READER_COUNT; ++i) {
+            final long id = (iteration * READER_COUNT + i) % SEED_ROWS + 1;
+
+            tasks.add(new Callable<Void>() {
+              @Override
+              public Void call() {
+                consume(provider.query(ContentUris.withAppendedId(contentUri, id), null, null, null, null));
+                return null;
+              }
+            });
+          }
+          for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+          }
+        }
+      });
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Map<String, Object> params(Object... extra) {
+    Map<String, Object> params = Benchmark.params(extra);
+    params.put("columns", columnCount);
+    return params;
+  }
+
+  private ContentValues createValues(int seed) {
+    ContentValues values = new ContentValues();
+
+    for (String column : BenchTableHelper.getDataColumns(columnCount)) {
+      values.put(column, column + "-value-" + seed);
+    }
+    return values;
+  }
+
+  private void seed() {
+    ContentValues[] values = new ContentValues[SEED_ROWS];
+
+    for (int i = 0; i < SEED_ROWS; ++i) {
+      values[i] = createValues(i);
+    }
+    provider.bulkInsert(contentUri, values);
+  }
+
+  static void consume(Cursor c) {
+    if (c == null) {
+      return;
+    }
+    try {
+      int columnCount = c.getColumnCount();
+
+      while (c.moveToNext()) {
+        for (int i = 0; i < columnCount; ++i) {
+          c.getString(i);
+        }
+      }
+    } finally {
+      c.close();
+    }
+  }
+}
@@ -1,17 +1,36 @@
 package com.ijoic.wrapprovider;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import com.ijoic.wrapprovider.core.BatchNotifier;
+import com.ijoic.wrapprovider.core.CallPermission;
+import com.ijoic.wrapprovider.core.ExtendedProviderHelper;
+import com.ijoic.wrapprovider.core.FastUriMatcher;
+import com.ijoic.wrapprovider.core.NotificationDispatcher;
 import com.ijoic.wrapprovider.core.ProviderHelper;
+import com.ijoic.wrapprovider.core.ProviderHelperAdapter;
+import com.ijoic.wrapprovider.core.ProviderMetrics;
+import com.ijoic.wrapprovider.core.SlowOperationLog;
+
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 
 /**
  * 基础-内容提供器
@@ -19,20 +38,23 @@ import com.ijoic.wrapprovider.core.ProviderHelper;
  * @author ijoic 963505345@qq.com
  * @version 1.0
  */
-public abstract class BaseContentProvider extends ContentProvider implements ProviderHelper {
+public abstract class BaseContentProvider extends ContentProvider implements ExtendedProviderHelper {
 
   private DatabaseConfig databaseConfig;
   private UriMatcher uriMatcher;
+  private SQLiteOpenHelper databaseHelper;
 
-  private ProviderHelper providerHelper;
+  private ExtendedProviderHelper providerHelper;
 
   /**
    * 构造函数
    */
   public BaseContentProvider() {
-    providerHelper = genProviderHelper();
+    providerHelper = ProviderHelperAdapter.wrap(genProviderHelper());
     databaseConfig = new DatabaseConfig();
     initDatabaseConfig(databaseConfig);
+    setNotificationDispatcher(databaseConfig.notificationDispatcher);
+    setSlowOperationLog(databaseConfig.slowOperationLog);
     initUriMatcher();
   }
 
@@ -53,25 +75,37 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
 
   @Override
   public boolean onCreate() {
-    setDatabaseHelper(
-      new SQLiteOpenHelper(getContext(), databaseConfig.databaseName, null, databaseConfig.databaseVersion) {
-        public void onCreate(SQLiteDatabase db) {
-          BaseContentProvider.this.onCreateDatabase(db);
-        }
+    DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(getContext(), databaseConfig, this);
+    setDatabaseHelper(databaseHelper);
 
-        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-          BaseContentProvider.this.onUpgradeDatabase(db, oldVersion, newVersion);
-        }
-      }
-    );
+    if (databaseConfig.prewarmEnabled) {
+      databaseHelper.prewarm(databaseConfig.prewarmExecutor);
+    }
     return true;
   }
 
   @Override
   public void setDatabaseHelper(@NonNull SQLiteOpenHelper databaseHelper) {
+    this.databaseHelper = databaseHelper;
     providerHelper.setDatabaseHelper(databaseHelper);
   }
 
+  @Nullable
+  @Override
+  public DatabaseConfig getShardConfig() {
+    return providerHelper.getShardConfig();
+  }
+
+  @Override
+  public void setNotificationDispatcher(@Nullable NotificationDispatcher dispatcher) {
+    providerHelper.setNotificationDispatcher(dispatcher);
+  }
+
+  @Override
+  public void setSlowOperationLog(@Nullable SlowOperationLog slowOperationLog) {
+    providerHelper.setSlowOperationLog(slowOperationLog);
+  }
+
   /**
    * 创建数据库回调
    *
@@ -94,8 +128,18 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
     providerHelper.onUpgradeDatabase(db, oldVersion, newVersion);
   }
 
+  @Override
+  public void onSchemaChanged(@NonNull SQLiteDatabase db) {
+    providerHelper.onSchemaChanged(db);
+  }
+
+  @Override
+  public void onPrewarmDatabase(@NonNull SQLiteDatabase db) {
+    providerHelper.onPrewarmDatabase(db);
+  }
+
   private void initUriMatcher() {
-    this.uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
+    this.uriMatcher = new FastUriMatcher(UriMatcher.NO_MATCH);
     initUriMatcher(uriMatcher, databaseConfig.authority, 0);
   }
 
@@ -104,22 +148,143 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
     providerHelper.initUriMatcher(uriMatcher, authority, 0);
   }
 
+  /**
+   * 批量操作
+   *
+   * <p>全部操作在同一事务中执行，变更通知在提交后按URI去重统一发送。</p>
+   *
+   * @param operations 操作列表
+   * @return 操作结果
+   * @throws OperationApplicationException 操作失败
+   */
+  @NonNull
+  @Override
+  public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return super.applyBatch(operations);
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    ContentProviderResult[] results;
+    boolean success = false;
+
+    BatchNotifier.begin();
+    try {
+      db.beginTransaction();
+      try {
+        results = super.applyBatch(operations);
+        db.setTransactionSuccessful();
+      } finally {
+        db.endTransaction();
+      }
+      success = true;
+    } finally {
+      BatchNotifier.end(getContext(), success, databaseConfig.notificationDispatcher);
+    }
+    return results;
+  }
+
   @Override
   public String getType(@NonNull Uri uri) {
     int matchCode = uriMatcher.match(uri);
+    ProviderMetrics metrics = databaseConfig.metrics;
+    long startTime = metrics != null ? System.nanoTime() : 0L;
     String mimeType;
 
-    if (matchCode == -1 || TextUtils.isEmpty(mimeType = getMimeType(matchCode))) {
+    if (matchCode == -1 || TextUtils.isEmpty(mimeType = getMimeType(matchCode, uri))) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
+    if (metrics != null) {
+      metrics.record(ProviderMetrics.OPERATION_GET_TYPE, matchCode, uri, System.nanoTime() - startTime, 0, true);
+    }
     return mimeType;
   }
 
+  /**
+   * 调用提供器方法
+   *
+   * <p>支持{@link ProviderMetrics#METHOD_DUMP_METRICS}及{@link SlowOperationLog#METHOD_DUMP_SLOW_OPERATIONS}，返回性能指标及慢操作记录；
+   * 参数<code>arg</code>为URI时，转发至该URI对应的帮助器。
+   * 导出方法需要读取权限；帮助器方法写入数据时需要该URI的写入权限，否则需要读取权限，检查规则见{@link CallPermission}。</p>
+   *
+   * @param method 方法名
+   * @param arg 参数
+   * @param extras 附加参数
+   * @return 调用结果
+   */
+  @Nullable
+  @Override
+  public Bundle call(@NonNull String method, @Nullable String arg, @Nullable Bundle extras) {
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics != null && ProviderMetrics.METHOD_DUMP_METRICS.equals(method)) {
+      CallPermission.enforce(this, getAuthorityUri(), false);
+      return metrics.dump();
+    }
+    SlowOperationLog slowOperationLog = databaseConfig.slowOperationLog;
+
+    if (slowOperationLog != null && SlowOperationLog.METHOD_DUMP_SLOW_OPERATIONS.equals(method)) {
+      CallPermission.enforce(this, getAuthorityUri(), false);
+      return slowOperationLog.dump();
+    }
+    if (!TextUtils.isEmpty(arg)) {
+      Uri uri = Uri.parse(arg);
+      int matchCode = uriMatcher.match(uri);
+
+      if (matchCode != -1) {
+        CallPermission.enforce(this, uri, isWriteMethod(matchCode, method));
+        Bundle result = call(matchCode, getContext(), uri, method, extras);
+
+        if (result != null) {
+          return result;
+        }
+      }
+    }
+    return super.call(method, arg, extras);
+  }
+
+  @Nullable
+  @Override
+  public Bundle call(int matchCode, Context context, @NonNull Uri uri, @NonNull String method, @Nullable Bundle extras) {
+    return providerHelper.call(matchCode, context, uri, method, extras);
+  }
+
+  @Override
+  public boolean isWriteMethod(int matchCode, @NonNull String method) {
+    return providerHelper.isWriteMethod(matchCode, method);
+  }
+
+  @NonNull
+  private Uri getAuthorityUri() {
+    return new Uri.Builder().scheme("content").authority(databaseConfig.authority).build();
+  }
+
+  @Override
+  public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+    super.dump(fd, writer, args);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics != null) {
+      metrics.dump(writer);
+    }
+    SlowOperationLog slowOperationLog = databaseConfig.slowOperationLog;
+
+    if (slowOperationLog != null) {
+      slowOperationLog.dump(writer);
+    }
+  }
+
   @Override
   public String getMimeType(int matchCode) {
     return providerHelper.getMimeType(matchCode);
   }
 
+  @Override
+  public String getMimeType(int matchCode, @NonNull Uri uri) {
+    return providerHelper.getMimeType(matchCode, uri);
+  }
+
   @Override
   public Cursor query(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
     int matchCode = uriMatcher.match(uri);
@@ -127,7 +292,23 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
     if (matchCode == -1) {
       return null;
     }
-    return query(matchCode, getContext(), uri, projection, selection, selectionArgs, sortOrder);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return query(matchCode, getContext(), uri, projection, selection, selectionArgs, sortOrder);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      Cursor c = query(matchCode, getContext(), uri, projection, selection, selectionArgs, sortOrder);
+      rows = c != null ? c.getCount() : 0;
+      success = true;
+      return c;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_QUERY, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
@@ -142,7 +323,23 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
     if (matchCode == -1) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
-    return insert(matchCode, getContext(), uri, values);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return insert(matchCode, getContext(), uri, values);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      Uri insertedUri = insert(matchCode, getContext(), uri, values);
+      rows = insertedUri != null ? 1 : 0;
+      success = true;
+      return insertedUri;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_INSERT, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
@@ -150,13 +347,60 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
     return providerHelper.insert(matchCode, context, uri, values);
   }
 
+  @Override
+  public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+    int matchCode = uriMatcher.match(uri);
+
+    if (matchCode == -1) {
+      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    }
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return bulkInsert(matchCode, getContext(), uri, values);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      int count = bulkInsert(matchCode, getContext(), uri, values);
+      rows = count;
+      success = true;
+      return count;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_BULK_INSERT, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
+  }
+
+  @Override
+  public int bulkInsert(int matchCode, Context context, @NonNull Uri uri, @NonNull ContentValues[] values) {
+    return providerHelper.bulkInsert(matchCode, context, uri, values);
+  }
+
   public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
     int matchCode = uriMatcher.match(uri);
 
     if (matchCode == -1) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
-    return delete(matchCode, getContext(), uri, selection, selectionArgs);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return delete(matchCode, getContext(), uri, selection, selectionArgs);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      int count = delete(matchCode, getContext(), uri, selection, selectionArgs);
+      rows = count;
+      success = true;
+      return count;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_DELETE, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
@@ -171,12 +415,42 @@ public abstract class BaseContentProvider extends ContentProvider implements Pro
     if (matchCode == -1) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
-    return update(matchCode, getContext(), uri, values, selection, selectionArgs);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return update(matchCode, getContext(), uri, values, selection, selectionArgs);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      int count = update(matchCode, getContext(), uri, values, selection, selectionArgs);
+      rows = count;
+      success = true;
+      return count;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_UPDATE, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
   public int update(int matchCode, Context context, @NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
     return providerHelper.update(matchCode, context, uri, values, selection, selectionArgs);
   }
-}
 
+  @Override
+  public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    int matchCode = uriMatcher.match(uri);
+
+    if (matchCode == -1) {
+      throw new FileNotFoundException("unkonwn uri: " + uri);
+    }
+    return openFile(matchCode, getContext(), uri, mode);
+  }
+
+  @Override
+  public ParcelFileDescriptor openFile(int matchCode, Context context, @NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    return providerHelper.openFile(matchCode, context, uri, mode);
+  }
+}
@@ -1,5 +1,11 @@
 package com.ijoic.wrapprovider;
 
+import com.ijoic.wrapprovider.core.NotificationDispatcher;
+import com.ijoic.wrapprovider.core.ProviderMetrics;
+import com.ijoic.wrapprovider.core.SlowOperationLog;
+
+import java.util.concurrent.Executor;
+
 /**
  * 数据库配置
  *
@@ -23,4 +29,104 @@ public class DatabaseConfig {
    * <p>Positive and increase for every upgrade.</p>
    */
   public int databaseVersion;
+
+  /**
+   * Notification Dispatcher.
+   *
+   * <p>Collects and coalesces change notifications of all tables, e.g.
+   * {@link com.ijoic.wrapprovider.core.CoalescingNotificationDispatcher}.
+   * Notifications are sent immediately when <code>null</code>.</p>
+   */
+  public NotificationDispatcher notificationDispatcher;
+
+  /**
+   * Write-ahead logging.
+   *
+   * <p>Readers no longer block behind writers once enabled, and the framework opens a pool of
+   * read connections. The pool size is chosen by the platform: there is no public API to size it,
+   * and no option here does.</p>
+   */
+  public boolean writeAheadLoggingEnabled;
+
+  /**
+   * Max size of the prepared-statement cache per connection.
+   *
+   * <p>Framework default is used when not positive. Capped to {@link android.database.sqlite.SQLiteDatabase#MAX_SQL_CACHE_SIZE}.</p>
+   */
+  public int maxSqlCacheSize;
+
+  /**
+   * PRAGMA synchronous.
+   *
+   * <p>Something like "OFF", "NORMAL" or "FULL". Database default is used when <code>null</code>.
+   * Applied to the primary connection only, which runs every write.</p>
+   */
+  public String synchronousMode;
+
+  /**
+   * PRAGMA cache_size.
+   *
+   * <p>Pages when positive, KiB when negative. Database default is used when <code>null</code>.
+   * Applied to the primary connection only: with write-ahead logging, pooled read connections keep the database default.</p>
+   */
+  public Integer cacheSize;
+
+  /**
+   * PRAGMA mmap_size.
+   *
+   * <p>Bytes of memory-mapped I/O, 0 disables it. Database default is used when <code>null</code>.
+   * Applied to the primary connection only: with write-ahead logging, pooled read connections keep the database default.</p>
+   */
+  public Long mmapSize;
+
+  /**
+   * PRAGMA page_size.
+   *
+   * <p>Only takes effect when the database file is created; existing databases keep their page size
+   * (below API 16 it is applied in <code>onCreate</code>). Database default is used when <code>null</code>.</p>
+   */
+  public Integer pageSize;
+
+  /**
+   * PRAGMA temp_store.
+   *
+   * <p>Something like "DEFAULT", "FILE" or "MEMORY". Database default is used when <code>null</code>.
+   * Applied to the primary connection only: with write-ahead logging, pooled read connections keep the database default.</p>
+   */
+  public String tempStore;
+
+  /**
+   * Prewarm database on provider creation.
+   *
+   * <p>Opens the writable database and runs the warm-up queries of every table in background
+   * right after the provider is created. Callers that arrive before the database is open wait for it.</p>
+   */
+  public boolean prewarmEnabled;
+
+  /**
+   * Executor for database prewarm.
+   *
+   * <p>{@link android.os.AsyncTask#THREAD_POOL_EXECUTOR} is used when <code>null</code>.</p>
+   */
+  public Executor prewarmExecutor;
+
+  /**
+   * Provider metrics.
+   *
+   * <p>Records latency and row counts of every operation, e.g.
+   * {@link com.ijoic.wrapprovider.core.HistogramProviderMetrics}. Readable through
+   * {@link android.content.ContentProvider#call} with {@link ProviderMetrics#METHOD_DUMP_METRICS}
+   * or <code>adb shell dumpsys activity provider</code>. Query cursors are counted, so their first window
+   * is filled before returned. Disabled when <code>null</code>.</p>
+   */
+  public ProviderMetrics metrics;
+
+  /**
+   * Slow operation log.
+   *
+   * <p>Records queries, updates and deletes slower than its threshold together with their
+   * normalized SQL and query plan. Readable through {@link android.content.ContentProvider#call}
+   * with {@link SlowOperationLog#METHOD_DUMP_SLOW_OPERATIONS} or dumpsys. Disabled when <code>null</code>.</p>
+   */
+  public SlowOperationLog slowOperationLog;
 }
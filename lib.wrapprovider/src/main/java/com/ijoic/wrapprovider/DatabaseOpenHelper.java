@@ -0,0 +1,200 @@
+package com.ijoic.wrapprovider;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.ijoic.wrapprovider.core.DatabaseCallback;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 数据库帮助器
+ *
+ * <p>按数据库配置开启预写日志，并在打开数据库时应用PRAGMA配置。
+ * 开启预热时，在后台打开数据库，期间到达的调用方等待打开完成。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+class DatabaseOpenHelper extends SQLiteOpenHelper {
+
+  private static final String TAG = "DatabaseOpenHelper";
+
+  private final DatabaseConfig databaseConfig;
+  private final DatabaseCallback callback;
+
+  private volatile CountDownLatch openLatch;
+  private volatile Thread prewarmThread;
+
+  /**
+   * 构造函数
+   *
+   * @param context 上下文
+   * @param databaseConfig 数据库配置
+   * @param callback 数据库生命周期回调
+   */
+  DatabaseOpenHelper(Context context, @NonNull DatabaseConfig databaseConfig, @NonNull DatabaseCallback callback) {
+    super(context, databaseConfig.databaseName, null, databaseConfig.databaseVersion);
+    this.databaseConfig = databaseConfig;
+    this.callback = callback;
+
+    if (databaseConfig.writeAheadLoggingEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+      setWriteAheadLoggingEnabled(true);
+    }
+  }
+
+  /**
+   * 预热数据库
+   *
+   * <p>在后台打开可写数据库，并执行各数据表的预热回调。执行器拒绝任务时放弃预热，调用方自行打开数据库。</p>
+   *
+   * @param executor 执行器，为空时使用{@link AsyncTask#THREAD_POOL_EXECUTOR}
+   */
+  void prewarm(@Nullable Executor executor) {
+    final CountDownLatch latch = new CountDownLatch(1);
+    openLatch = latch;
+
+    if (executor == null) {
+      executor = AsyncTask.THREAD_POOL_EXECUTOR;
+    }
+    Runnable task = new Runnable() {
+      @Override
+      public void run() {
+        SQLiteDatabase db;
+        prewarmThread = Thread.currentThread();
+
+        try {
+          db = DatabaseOpenHelper.super.getWritableDatabase();
+        } catch (RuntimeException e) {
+          Log.w(TAG, "prewarm open database failed", e);
+          return;
+        } finally {
+          openLatch = null;
+          prewarmThread = null;
+          latch.countDown();
+        }
+
+        try {
+          callback.onPrewarmDatabase(db);
+        } catch (RuntimeException e) {
+          Log.w(TAG, "prewarm query failed", e);
+        }
+      }
+    };
+
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      // callers open the database themselves.
+      Log.w(TAG, "prewarm rejected", e);
+      openLatch = null;
+      latch.countDown();
+    }
+  }
+
+  @Override
+  public SQLiteDatabase getWritableDatabase() {
+    awaitPrewarmOpen();
+    return super.getWritableDatabase();
+  }
+
+  @Override
+  public SQLiteDatabase getReadableDatabase() {
+    awaitPrewarmOpen();
+    return super.getReadableDatabase();
+  }
+
+  private void awaitPrewarmOpen() {
+    CountDownLatch latch = openLatch;
+
+    // the prewarm thread itself may reenter while creating or upgrading the database.
+    if (latch == null || prewarmThread == Thread.currentThread()) {
+      return;
+    }
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  @Override
+  public void onConfigure(SQLiteDatabase db) {
+    // page_size only takes effect before the first table is created.
+    if (databaseConfig.pageSize != null) {
+      executePragma(db, "PRAGMA page_size=" + databaseConfig.pageSize);
+    }
+  }
+
+  @Override
+  public void onCreate(SQLiteDatabase db) {
+    // onConfigure is not called below API 16, the database file is still empty here.
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && databaseConfig.pageSize != null) {
+      executePragma(db, "PRAGMA page_size=" + databaseConfig.pageSize);
+    }
+    callback.onCreateDatabase(db);
+    callback.onSchemaChanged(db);
+  }
+
+  @Override
+  public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+    callback.onUpgradeDatabase(db, oldVersion, newVersion);
+    callback.onSchemaChanged(db);
+  }
+
+  @Override
+  public void onOpen(SQLiteDatabase db) {
+    DatabaseConfig config = this.databaseConfig;
+
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN && config.writeAheadLoggingEnabled && !db.isReadOnly()) {
+      db.enableWriteAheadLogging();
+    }
+    // the pragmas below are per connection and reach only the primary connection running onOpen,
+    // the framework offers no hook for pooled read connections.
+    if (config.maxSqlCacheSize > 0) {
+      db.setMaxSqlCacheSize(Math.min(config.maxSqlCacheSize, SQLiteDatabase.MAX_SQL_CACHE_SIZE));
+    }
+    if (!TextUtils.isEmpty(config.synchronousMode)) {
+      executePragma(db, "PRAGMA synchronous=" + config.synchronousMode);
+    }
+    if (config.cacheSize != null) {
+      executePragma(db, "PRAGMA cache_size=" + config.cacheSize);
+    }
+    if (config.mmapSize != null) {
+      executePragma(db, "PRAGMA mmap_size=" + config.mmapSize);
+    }
+    if (!TextUtils.isEmpty(config.tempStore)) {
+      executePragma(db, "PRAGMA temp_store=" + config.tempStore);
+    }
+  }
+
+  /**
+   * 执行PRAGMA语句
+   *
+   * <p>部分PRAGMA语句会返回结果行，无法通过execSQL执行，统一以查询方式执行。</p>
+   *
+   * @param db 数据库
+   * @param sql PRAGMA语句
+   */
+  private static void executePragma(@NonNull SQLiteDatabase db, @NonNull String sql) {
+    Cursor c = db.rawQuery(sql, null);
+
+    try {
+      c.moveToFirst();
+    } finally {
+      c.close();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.ijoic.wrapprovider;
+
+/**
+ * Table Index Config.
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class IndexConfig {
+  /**
+   * Index name.
+   *
+   * <p>Generated as "idx_&lt;table&gt;_&lt;column&gt;_..." when <code>null</code>.</p>
+   */
+  public String name;
+
+  /**
+   * Indexed columns.
+   *
+   * <p>Column with optional order, something like {"category", "modified DESC"}. May not be <code>null</code>.</p>
+   */
+  public String[] columns;
+
+  /**
+   * Unique index.
+   */
+  public boolean unique;
+
+  /**
+   * Partial index condition.
+   *
+   * <p>Something like "deleted=0". Partial indexes need SQLite 3.8.0 (API 21) and are skipped on older platforms.</p>
+   */
+  public String where;
+
+  /**
+   * Create an empty index config.
+   */
+  public IndexConfig() {
+  }
+
+  /**
+   * Create an index config of columns.
+   *
+   * @param columns indexed columns
+   */
+  public IndexConfig(String... columns) {
+    this.columns = columns;
+  }
+}
@@ -1,18 +1,41 @@
 package com.ijoic.wrapprovider;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
-import android.util.SparseArray;
 
+import com.ijoic.wrapprovider.core.BaseProviderHelper;
+import com.ijoic.wrapprovider.core.BatchNotifier;
+import com.ijoic.wrapprovider.core.CallPermission;
+import com.ijoic.wrapprovider.core.DatabaseCallback;
+import com.ijoic.wrapprovider.core.ExtendedProviderHelper;
+import com.ijoic.wrapprovider.core.FastUriMatcher;
+import com.ijoic.wrapprovider.core.NotificationDispatcher;
 import com.ijoic.wrapprovider.core.ProviderHelper;
+import com.ijoic.wrapprovider.core.ProviderHelperAdapter;
+import com.ijoic.wrapprovider.core.ProviderMetrics;
+import com.ijoic.wrapprovider.core.SlowOperationLog;
+
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 多表-内容提供器
@@ -20,14 +43,16 @@ import com.ijoic.wrapprovider.core.ProviderHelper;
  * @author ijoic 963505345@qq.com
  * @version 1.0
  */
-public abstract class MultiTableContentProvider extends ContentProvider implements ProviderHelper {
+public abstract class MultiTableContentProvider extends ContentProvider implements ExtendedProviderHelper {
 
   private DatabaseConfig databaseConfig;
   private UriMatcher uriMatcher;
 
-  private SparseArray<ProviderHelper> providerHelperMap;
+  private ExtendedProviderHelper[] providerHelpers;
+  private DatabaseConfig[] shardConfigs;
+  private SQLiteOpenHelper[] helperDatabases;
 
-  private static final int BASE_MATCH_CODE_MASK = 0x10000;
+  private static final int MATCH_CODE_MASK_SHIFT = 16;
   private static final int MAX_MATCH_CODE_MASK = 0xFFFF0000;
   private static final int MAX_MATCH_CODE_MASK_REVERSE = ~MAX_MATCH_CODE_MASK;
 
@@ -38,6 +63,8 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     databaseConfig = new DatabaseConfig();
     initDatabaseConfig(databaseConfig);
     initProviderMap();
+    setNotificationDispatcher(databaseConfig.notificationDispatcher);
+    setSlowOperationLog(databaseConfig.slowOperationLog);
     initUriMatcher();
   }
 
@@ -58,58 +85,166 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
 
   @Override
   public boolean onCreate() {
-    setDatabaseHelper(
-      new SQLiteOpenHelper(getContext(), databaseConfig.databaseName, null, databaseConfig.databaseVersion) {
-        public void onCreate(SQLiteDatabase db) {
-          MultiTableContentProvider.this.onCreateDatabase(db);
-        }
+    DatabaseOpenHelper databaseHelper = new DatabaseOpenHelper(getContext(), databaseConfig, this);
+    setDatabaseHelper(databaseHelper);
 
-        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-          MultiTableContentProvider.this.onUpgradeDatabase(db, oldVersion, newVersion);
-        }
-      }
-    );
+    if (databaseConfig.prewarmEnabled) {
+      databaseHelper.prewarm(databaseConfig.prewarmExecutor);
+    }
+    initShardHelpers();
     return true;
   }
 
+  private void initShardHelpers() {
+    Map<String, ShardCallback> shardMap = new LinkedHashMap<>();
+    ExtendedProviderHelper[] helpers = providerHelpers;
+
+    for (int i = 0; i < helpers.length; ++i) {
+      DatabaseConfig shardConfig = shardConfigs[i];
+
+      if (shardConfig == null) {
+        continue;
+      }
+      ShardCallback shard = shardMap.get(shardConfig.databaseName);
+
+      if (shard == null) {
+        shard = new ShardCallback(shardConfig);
+        shardMap.put(shardConfig.databaseName, shard);
+      }
+      shard.helperIndexes.add(i);
+      shard.helpers.add(helpers[i]);
+    }
+
+    for (ShardCallback shard : shardMap.values()) {
+      DatabaseOpenHelper shardHelper = new DatabaseOpenHelper(getContext(), shard.config, shard);
+
+      for (int index : shard.helperIndexes) {
+        helpers[index].setDatabaseHelper(shardHelper);
+        helperDatabases[index] = shardHelper;
+      }
+      if (shard.config.prewarmEnabled || databaseConfig.prewarmEnabled) {
+        shardHelper.prewarm(shard.config.prewarmExecutor != null ? shard.config.prewarmExecutor : databaseConfig.prewarmExecutor);
+      }
+    }
+  }
+
   private void initProviderMap() {
-    SparseArray<ProviderHelper> helperMap = new SparseArray<>();
     ProviderHelper[] helperList = genProviderHelperList();
-    int matchCodeMask = 0;
+    int helperCount = 0;
+
+    for (ProviderHelper helper : helperList) {
+      if (helper != null) {
+        ++helperCount;
+      }
+    }
+    ExtendedProviderHelper[] helpers = new ExtendedProviderHelper[helperCount];
+    int index = 0;
 
     for (ProviderHelper helper : helperList) {
       if (helper != null) {
-        helperMap.put(matchCodeMask, helper);
-        matchCodeMask += BASE_MATCH_CODE_MASK;
+        helpers[index++] = ProviderHelperAdapter.wrap(helper);
       }
     }
-    providerHelperMap = helperMap;
+    providerHelpers = helpers;
+    helperDatabases = new SQLiteOpenHelper[helperCount];
+    shardConfigs = new DatabaseConfig[helperCount];
+
+    for (int i = 0; i < helperCount; ++i) {
+      DatabaseConfig shardConfig = helpers[i].getShardConfig();
+
+      if (shardConfig != null && !TextUtils.isEmpty(shardConfig.databaseName) && !shardConfig.databaseName.equals(databaseConfig.databaseName)) {
+        shardConfigs[i] = shardConfig;
+      }
+    }
+    initSharedDatabases();
+  }
+
+  /**
+   * 标记共用数据库的帮助器
+   *
+   * <p>同一数据库（共享数据库或同名分库）包含多个帮助器时，缺失迁移步骤的版本可能属于其他数据表，见{@link BaseProviderHelper#setSharedDatabase(boolean)}。</p>
+   */
+  private void initSharedDatabases() {
+    ExtendedProviderHelper[] helpers = providerHelpers;
+
+    for (int i = 0; i < helpers.length; ++i) {
+      if (!(helpers[i] instanceof BaseProviderHelper)) {
+        continue;
+      }
+      String databaseName = shardConfigs[i] != null ? shardConfigs[i].databaseName : null;
+      int count = 0;
+
+      for (DatabaseConfig shardConfig : shardConfigs) {
+        if (databaseName == null ? shardConfig == null : shardConfig != null && databaseName.equals(shardConfig.databaseName)) {
+          ++count;
+        }
+      }
+      ((BaseProviderHelper) helpers[i]).setSharedDatabase(count > 1);
+    }
   }
 
   private void initUriMatcher() {
-    this.uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
-    int matchCodeMask;
-    ProviderHelper helper;
+    this.uriMatcher = new FastUriMatcher(UriMatcher.NO_MATCH);
+    ExtendedProviderHelper[] helpers = providerHelpers;
 
-    for (int i = 0, size = providerHelperMap.size(); i < size; ++i) {
-      matchCodeMask = providerHelperMap.keyAt(i);
-      helper = providerHelperMap.valueAt(i);
-      helper.initUriMatcher(uriMatcher, databaseConfig.authority, matchCodeMask);
+    for (int i = 0; i < helpers.length; ++i) {
+      helpers[i].initUriMatcher(uriMatcher, databaseConfig.authority, i << MATCH_CODE_MASK_SHIFT);
     }
   }
 
+  /**
+   * 获取匹配码对应的数据库提供器-帮助器
+   *
+   * @param matchCode 匹配码
+   * @return 数据库提供器-帮助器，不存在时返回空
+   */
+  private ExtendedProviderHelper getProviderHelper(int matchCode) {
+    int index = matchCode >>> MATCH_CODE_MASK_SHIFT;
+    ExtendedProviderHelper[] helpers = providerHelpers;
+    return index < helpers.length ? helpers[index] : null;
+  }
+
   @Override
   public void initUriMatcher(@NonNull UriMatcher uriMatcher, @NonNull String authority, int matchCodeMask) {
     // do nothing.
   }
 
+  @Nullable
+  @Override
+  public DatabaseConfig getShardConfig() {
+    return null;
+  }
+
+  /**
+   * 设置数据库帮助器
+   *
+   * <p>仅作用于使用共享数据库的帮助器，声明了分库配置的帮助器由各自的分库管理。</p>
+   *
+   * @param databaseHelper 数据库帮助器
+   */
   @Override
   public void setDatabaseHelper(@NonNull SQLiteOpenHelper databaseHelper) {
-    ProviderHelper helper;
+    ExtendedProviderHelper[] helpers = providerHelpers;
 
-    for (int i = 0, size = providerHelperMap.size(); i < size; ++i) {
-      helper = providerHelperMap.valueAt(i);
-      helper.setDatabaseHelper(databaseHelper);
+    for (int i = 0; i < helpers.length; ++i) {
+      if (shardConfigs[i] == null) {
+        helpers[i].setDatabaseHelper(databaseHelper);
+        helperDatabases[i] = databaseHelper;
+      }
+    }
+  }
+
+  @Override
+  public void setNotificationDispatcher(@Nullable NotificationDispatcher dispatcher) {
+    for (ExtendedProviderHelper helper : providerHelpers) {
+      helper.setNotificationDispatcher(dispatcher);
+    }
+  }
+
+  @Override
+  public void setSlowOperationLog(@Nullable SlowOperationLog slowOperationLog) {
+    for (ExtendedProviderHelper helper : providerHelpers) {
+      helper.setSlowOperationLog(slowOperationLog);
     }
   }
 
@@ -120,11 +255,12 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
    */
   @Override
   public void onCreateDatabase(@NonNull SQLiteDatabase db) {
-    ProviderHelper helper;
+    ExtendedProviderHelper[] helpers = providerHelpers;
 
-    for (int i = 0, size = providerHelperMap.size(); i < size; ++i) {
-      helper = providerHelperMap.valueAt(i);
-      helper.onCreateDatabase(db);
+    for (int i = 0; i < helpers.length; ++i) {
+      if (shardConfigs[i] == null) {
+        helpers[i].onCreateDatabase(db);
+      }
     }
   }
 
@@ -137,29 +273,239 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
    */
   @Override
   public void onUpgradeDatabase(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
-    ProviderHelper helper;
+    ExtendedProviderHelper[] helpers = providerHelpers;
+
+    for (int i = 0; i < helpers.length; ++i) {
+      if (shardConfigs[i] == null) {
+        helpers[i].onUpgradeDatabase(db, oldVersion, newVersion);
+      }
+    }
+  }
+
+  @Override
+  public void onSchemaChanged(@NonNull SQLiteDatabase db) {
+    ExtendedProviderHelper[] helpers = providerHelpers;
+
+    for (int i = 0; i < helpers.length; ++i) {
+      if (shardConfigs[i] == null) {
+        helpers[i].onSchemaChanged(db);
+      }
+    }
+  }
+
+  @Override
+  public void onPrewarmDatabase(@NonNull SQLiteDatabase db) {
+    ExtendedProviderHelper[] helpers = providerHelpers;
+
+    for (int i = 0; i < helpers.length; ++i) {
+      if (shardConfigs[i] == null) {
+        helpers[i].onPrewarmDatabase(db);
+      }
+    }
+  }
+
+  /**
+   * 批量操作
+   *
+   * <p>全部操作在同一事务中执行，变更通知在提交后按URI去重统一发送。
+   * 操作涉及多个分库时，按帮助器顺序依次开启各分库事务，并在全部操作成功后依次提交。
+   * 原子性仅保证在单个分库内：某一分库提交失败时，已提交的分库不会回滚。
+   * 操作全部执行成功后即发送变更通知，即使之后某一分库提交失败。</p>
+   *
+   * @param operations 操作列表
+   * @return 操作结果
+   * @throws OperationApplicationException 操作失败
+   */
+  @NonNull
+  @Override
+  public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
+    List<SQLiteDatabase> databases = getBatchDatabases(operations);
+
+    if (databases.isEmpty()) {
+      return super.applyBatch(operations);
+    }
+    ContentProviderResult[] results;
+    boolean applied = false;
+
+    BatchNotifier.begin();
+    try {
+      int beginCount = 0;
+
+      try {
+        for (SQLiteDatabase db : databases) {
+          db.beginTransaction();
+          ++beginCount;
+        }
+        results = super.applyBatch(operations);
+
+        for (SQLiteDatabase db : databases) {
+          db.setTransactionSuccessful();
+        }
+        applied = true;
+      } finally {
+        endTransactions(databases, beginCount);
+      }
+    } finally {
+      BatchNotifier.end(getContext(), applied, databaseConfig.notificationDispatcher);
+    }
+    return results;
+  }
+
+  /**
+   * 依次结束各分库事务
+   *
+   * <p>每个分库单独结束，某一分库提交失败时仍结束其余分库，之后抛出第一个异常。</p>
+   *
+   * @param databases 分库列表
+   * @param count 已开启事务的分库个数
+   */
+  private static void endTransactions(@NonNull List<SQLiteDatabase> databases, int count) {
+    RuntimeException error = null;
+
+    for (int i = count - 1; i >= 0; --i) {
+      try {
+        databases.get(i).endTransaction();
+      } catch (RuntimeException e) {
+        if (error == null) {
+          error = e;
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  @NonNull
+  private List<SQLiteDatabase> getBatchDatabases(@NonNull ArrayList<ContentProviderOperation> operations) {
+    SQLiteOpenHelper[] helperDatabases = this.helperDatabases;
+    boolean[] usedHelpers = new boolean[helperDatabases.length];
+
+    for (ContentProviderOperation operation : operations) {
+      int matchCode = uriMatcher.match(operation.getUri());
+
+      if (matchCode != -1) {
+        int index = matchCode >>> MATCH_CODE_MASK_SHIFT;
+
+        if (index < usedHelpers.length) {
+          usedHelpers[index] = true;
+        }
+      }
+    }
+    List<SQLiteOpenHelper> openHelpers = new ArrayList<>();
+    List<SQLiteDatabase> databases = new ArrayList<>();
+
+    for (int i = 0; i < helperDatabases.length; ++i) {
+      SQLiteOpenHelper openHelper = helperDatabases[i];
 
-    for (int i = 0, size = providerHelperMap.size(); i < size; ++i) {
-      helper = providerHelperMap.valueAt(i);
-      helper.onUpgradeDatabase(db, oldVersion, newVersion);
+      if (usedHelpers[i] && openHelper != null && !openHelpers.contains(openHelper)) {
+        openHelpers.add(openHelper);
+        databases.add(openHelper.getWritableDatabase());
+      }
     }
+    return databases;
   }
 
   @Override
   public String getType(@NonNull Uri uri) {
     int matchCode = uriMatcher.match(uri);
+    ProviderMetrics metrics = databaseConfig.metrics;
+    long startTime = metrics != null ? System.nanoTime() : 0L;
     String mimeType;
 
-    if (matchCode == -1 || TextUtils.isEmpty(mimeType = getMimeType(matchCode))) {
+    if (matchCode == -1 || TextUtils.isEmpty(mimeType = getMimeType(matchCode, uri))) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
+    if (metrics != null) {
+      metrics.record(ProviderMetrics.OPERATION_GET_TYPE, matchCode, uri, System.nanoTime() - startTime, 0, true);
+    }
     return mimeType;
   }
 
+  /**
+   * 调用提供器方法
+   *
+   * <p>支持{@link ProviderMetrics#METHOD_DUMP_METRICS}及{@link SlowOperationLog#METHOD_DUMP_SLOW_OPERATIONS}，返回性能指标及慢操作记录；
+   * 参数<code>arg</code>为URI时，转发至该URI对应的帮助器。
+   * 导出方法需要读取权限；帮助器方法写入数据时需要该URI的写入权限，否则需要读取权限，检查规则见{@link CallPermission}。</p>
+   *
+   * @param method 方法名
+   * @param arg 参数
+   * @param extras 附加参数
+   * @return 调用结果
+   */
+  @Nullable
+  @Override
+  public Bundle call(@NonNull String method, @Nullable String arg, @Nullable Bundle extras) {
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics != null && ProviderMetrics.METHOD_DUMP_METRICS.equals(method)) {
+      CallPermission.enforce(this, getAuthorityUri(), false);
+      return metrics.dump();
+    }
+    SlowOperationLog slowOperationLog = databaseConfig.slowOperationLog;
+
+    if (slowOperationLog != null && SlowOperationLog.METHOD_DUMP_SLOW_OPERATIONS.equals(method)) {
+      CallPermission.enforce(this, getAuthorityUri(), false);
+      return slowOperationLog.dump();
+    }
+    if (!TextUtils.isEmpty(arg)) {
+      Uri uri = Uri.parse(arg);
+      int matchCode = uriMatcher.match(uri);
+
+      if (matchCode != -1) {
+        CallPermission.enforce(this, uri, isWriteMethod(matchCode, method));
+        Bundle result = call(matchCode, getContext(), uri, method, extras);
+
+        if (result != null) {
+          return result;
+        }
+      }
+    }
+    return super.call(method, arg, extras);
+  }
+
+  @Nullable
+  @Override
+  public Bundle call(int matchCode, Context context, @NonNull Uri uri, @NonNull String method, @Nullable Bundle extras) {
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
+
+    if (helper == null) {
+      throw new IllegalArgumentException("call error: provider not found");
+    }
+    matchCode = matchCode & MAX_MATCH_CODE_MASK_REVERSE;
+    return helper.call(matchCode, context, uri, method, extras);
+  }
+
+  @Override
+  public boolean isWriteMethod(int matchCode, @NonNull String method) {
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
+    return helper != null && helper.isWriteMethod(matchCode & MAX_MATCH_CODE_MASK_REVERSE, method);
+  }
+
+  @NonNull
+  private Uri getAuthorityUri() {
+    return new Uri.Builder().scheme("content").authority(databaseConfig.authority).build();
+  }
+
+  @Override
+  public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+    super.dump(fd, writer, args);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics != null) {
+      metrics.dump(writer);
+    }
+    SlowOperationLog slowOperationLog = databaseConfig.slowOperationLog;
+
+    if (slowOperationLog != null) {
+      slowOperationLog.dump(writer);
+    }
+  }
+
   @Override
   public String getMimeType(int matchCode) {
-    int matchCodeMask = matchCode & MAX_MATCH_CODE_MASK;
-    ProviderHelper helper = providerHelperMap.get(matchCodeMask);
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
 
     if (helper == null) {
       throw new IllegalArgumentException("getMimeType error: provider not found");
@@ -168,6 +514,17 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     return helper.getMimeType(matchCode);
   }
 
+  @Override
+  public String getMimeType(int matchCode, @NonNull Uri uri) {
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
+
+    if (helper == null) {
+      throw new IllegalArgumentException("getMimeType error: provider not found");
+    }
+    matchCode = matchCode & MAX_MATCH_CODE_MASK_REVERSE;
+    return helper.getMimeType(matchCode, uri);
+  }
+
   @Override
   public Cursor query(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
     int matchCode = uriMatcher.match(uri);
@@ -175,13 +532,28 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     if (matchCode == -1) {
       return null;
     }
-    return query(matchCode, getContext(), uri, projection, selection, selectionArgs, sortOrder);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return query(matchCode, getContext(), uri, projection, selection, selectionArgs, sortOrder);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      Cursor c = query(matchCode, getContext(), uri, projection, selection, selectionArgs, sortOrder);
+      rows = c != null ? c.getCount() : 0;
+      success = true;
+      return c;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_QUERY, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
   public Cursor query(int matchCode, Context context, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
-    int matchCodeMask = matchCode & MAX_MATCH_CODE_MASK;
-    ProviderHelper helper = providerHelperMap.get(matchCodeMask);
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
 
     if (helper == null) {
       throw new IllegalArgumentException("query error: provider not found");
@@ -197,13 +569,28 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     if (matchCode == -1) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
-    return insert(matchCode, getContext(), uri, values);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return insert(matchCode, getContext(), uri, values);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      Uri insertedUri = insert(matchCode, getContext(), uri, values);
+      rows = insertedUri != null ? 1 : 0;
+      success = true;
+      return insertedUri;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_INSERT, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
   public Uri insert(int matchCode, Context context, @NonNull Uri uri, ContentValues values) {
-    int matchCodeMask = matchCode & MAX_MATCH_CODE_MASK;
-    ProviderHelper helper = providerHelperMap.get(matchCodeMask);
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
 
     if (helper == null) {
       throw new IllegalArgumentException("insert error: provider not found");
@@ -212,19 +599,71 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     return helper.insert(matchCode, context, uri, values);
   }
 
+  @Override
+  public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+    int matchCode = uriMatcher.match(uri);
+
+    if (matchCode == -1) {
+      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    }
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return bulkInsert(matchCode, getContext(), uri, values);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      int count = bulkInsert(matchCode, getContext(), uri, values);
+      rows = count;
+      success = true;
+      return count;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_BULK_INSERT, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
+  }
+
+  @Override
+  public int bulkInsert(int matchCode, Context context, @NonNull Uri uri, @NonNull ContentValues[] values) {
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
+
+    if (helper == null) {
+      throw new IllegalArgumentException("bulkInsert error: provider not found");
+    }
+    matchCode = matchCode & MAX_MATCH_CODE_MASK_REVERSE;
+    return helper.bulkInsert(matchCode, context, uri, values);
+  }
+
   public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
     int matchCode = uriMatcher.match(uri);
 
     if (matchCode == -1) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
-    return delete(matchCode, getContext(), uri, selection, selectionArgs);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return delete(matchCode, getContext(), uri, selection, selectionArgs);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      int count = delete(matchCode, getContext(), uri, selection, selectionArgs);
+      rows = count;
+      success = true;
+      return count;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_DELETE, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
   public int delete(int matchCode, Context context, @NonNull Uri uri, String selection, String[] selectionArgs) {
-    int matchCodeMask = matchCode & MAX_MATCH_CODE_MASK;
-    ProviderHelper helper = providerHelperMap.get(matchCodeMask);
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
 
     if (helper == null) {
       throw new IllegalArgumentException("delete error: provider not found");
@@ -240,13 +679,28 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     if (matchCode == -1) {
       throw new IllegalArgumentException("unkonwn uri: " + uri);
     }
-    return update(matchCode, getContext(), uri, values, selection, selectionArgs);
+    ProviderMetrics metrics = databaseConfig.metrics;
+
+    if (metrics == null) {
+      return update(matchCode, getContext(), uri, values, selection, selectionArgs);
+    }
+    long startTime = System.nanoTime();
+    boolean success = false;
+    int rows = 0;
+
+    try {
+      int count = update(matchCode, getContext(), uri, values, selection, selectionArgs);
+      rows = count;
+      success = true;
+      return count;
+    } finally {
+      metrics.record(ProviderMetrics.OPERATION_UPDATE, matchCode, uri, System.nanoTime() - startTime, rows, success);
+    }
   }
 
   @Override
   public int update(int matchCode, Context context, @NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
-    int matchCodeMask = matchCode & MAX_MATCH_CODE_MASK;
-    ProviderHelper helper = providerHelperMap.get(matchCodeMask);
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
 
     if (helper == null) {
       throw new IllegalArgumentException("update error: provider not found");
@@ -254,5 +708,63 @@ public abstract class MultiTableContentProvider extends ContentProvider implemen
     matchCode = matchCode & MAX_MATCH_CODE_MASK_REVERSE;
     return helper.update(matchCode, context, uri, values, selection, selectionArgs);
   }
-}
 
+  @Override
+  public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    int matchCode = uriMatcher.match(uri);
+
+    if (matchCode == -1) {
+      throw new FileNotFoundException("unkonwn uri: " + uri);
+    }
+    return openFile(matchCode, getContext(), uri, mode);
+  }
+
+  @Override
+  public ParcelFileDescriptor openFile(int matchCode, Context context, @NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    ExtendedProviderHelper helper = getProviderHelper(matchCode);
+
+    if (helper == null) {
+      throw new FileNotFoundException("openFile error: provider not found");
+    }
+    matchCode = matchCode & MAX_MATCH_CODE_MASK_REVERSE;
+    return helper.openFile(matchCode, context, uri, mode);
+  }
+
+  private static class ShardCallback implements DatabaseCallback {
+    private final DatabaseConfig config;
+    private final List<Integer> helperIndexes = new ArrayList<>();
+    private final List<ExtendedProviderHelper> helpers = new ArrayList<>();
+
+    private ShardCallback(@NonNull DatabaseConfig config) {
+      this.config = config;
+    }
+
+    @Override
+    public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+      for (ExtendedProviderHelper helper : helpers) {
+        helper.onCreateDatabase(db);
+      }
+    }
+
+    @Override
+    public void onUpgradeDatabase(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+      for (ExtendedProviderHelper helper : helpers) {
+        helper.onUpgradeDatabase(db, oldVersion, newVersion);
+      }
+    }
+
+    @Override
+    public void onSchemaChanged(@NonNull SQLiteDatabase db) {
+      for (ExtendedProviderHelper helper : helpers) {
+        helper.onSchemaChanged(db);
+      }
+    }
+
+    @Override
+    public void onPrewarmDatabase(@NonNull SQLiteDatabase db) {
+      for (ExtendedProviderHelper helper : helpers) {
+        helper.onPrewarmDatabase(db);
+      }
+    }
+  }
+}
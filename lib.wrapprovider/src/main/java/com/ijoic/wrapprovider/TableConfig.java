@@ -9,6 +9,36 @@ import android.net.Uri;
  * @version 1.0
  */
 public class TableConfig {
+  /**
+   * Write-behind overflow policy: block the caller until the queue has room.
+   */
+  public static final int WRITE_BEHIND_OVERFLOW_BLOCK = 0;
+
+  /**
+   * Write-behind overflow policy: drop the inserted values.
+   *
+   * <p>The dropped insert returns <code>null</code>, the same as a failed insert.</p>
+   */
+  public static final int WRITE_BEHIND_OVERFLOW_DROP = 1;
+
+  /**
+   * Write-behind overflow policy: insert synchronously on the caller thread.
+   */
+  public static final int WRITE_BEHIND_OVERFLOW_CALLER_RUNS = 2;
+
+  /**
+   * Upsert conflict resolution: update the existing row in place, keeping its row id and unspecified columns.
+   */
+  public static final int CONFLICT_UPDATE = 0;
+
+  /**
+   * Upsert conflict resolution: replace the existing row (INSERT OR REPLACE), assigning a new row id.
+   *
+   * <p>The row matched by {@link #conflictColumns} is deleted explicitly first, so delete triggers
+   * (change log, full-text index) see it.</p>
+   */
+  public static final int CONFLICT_REPLACE = 1;
+
   /**
    * Table Name.
    */
@@ -56,4 +86,127 @@ public class TableConfig {
    * <p>Something like "notes". May not be <code>null</code>.</p>
    */
   public String itemSet;
+
+  /**
+   * Query result cache size.
+   *
+   * <p>Max count of cached query results. The cache is disabled when not positive.</p>
+   */
+  public int queryCacheSize;
+
+  /**
+   * Max row count of a cached query result.
+   *
+   * <p>Larger results are returned without caching.</p>
+   */
+  public int queryCacheMaxRows = 200;
+
+  /**
+   * Warm-up queries.
+   *
+   * <p>Raw SQL queries run in background when database prewarm is enabled,
+   * something like "SELECT * FROM notes ORDER BY modified DESC LIMIT 50".</p>
+   */
+  public String[] warmUpQueries;
+
+  /**
+   * Shard database config.
+   *
+   * <p>Puts the table in its own database file (name, version and pragmas) when used inside
+   * {@link MultiTableContentProvider}, so its writes no longer share the writer lock of other tables.
+   * Tables declaring the same database name share one shard. The shared database is used when <code>null</code>.</p>
+   */
+  public DatabaseConfig databaseConfig;
+
+  /**
+   * Write-behind insert enabled.
+   *
+   * <p>Single inserts on the item set are queued in memory and written in batched transactions
+   * by a background thread. The insert returns the table content uri instead of the row uri,
+   * and queued rows are not visible to queries until written. Inserts inside
+   * {@link android.content.ContentProvider#applyBatch} stay synchronous.</p>
+   */
+  public boolean writeBehindEnabled;
+
+  /**
+   * Write-behind queue capacity.
+   */
+  public int writeBehindCapacity = 1024;
+
+  /**
+   * Max row count of a write-behind batch.
+   */
+  public int writeBehindBatchSize = 128;
+
+  /**
+   * Max delay of a queued row before written, in milliseconds.
+   */
+  public long writeBehindFlushIntervalMillis = 200L;
+
+  /**
+   * Write-behind overflow policy.
+   *
+   * <p>One of {@link #WRITE_BEHIND_OVERFLOW_BLOCK}, {@link #WRITE_BEHIND_OVERFLOW_DROP}
+   * and {@link #WRITE_BEHIND_OVERFLOW_CALLER_RUNS}.</p>
+   */
+  public int writeBehindOverflowPolicy = WRITE_BEHIND_OVERFLOW_BLOCK;
+
+  /**
+   * Upsert conflict key.
+   *
+   * <p>Columns identifying an existing row on upsert, backed by a UNIQUE constraint or index.
+   * Upsert is unavailable when <code>null</code>.</p>
+   */
+  public String[] conflictColumns;
+
+  /**
+   * Upsert conflict resolution.
+   *
+   * <p>One of {@link #CONFLICT_UPDATE} and {@link #CONFLICT_REPLACE}.</p>
+   */
+  public int conflictResolution = CONFLICT_UPDATE;
+
+  /**
+   * Table indexes.
+   *
+   * <p>Created, rebuilt when changed and dropped when removed, each time the database is created or upgraded.
+   * Only indexes named with the "idx_&lt;table&gt;_" prefix are dropped when no longer declared.</p>
+   */
+  public IndexConfig[] indexes;
+
+  /**
+   * Full-text search columns.
+   *
+   * <p>Text columns indexed by {@link com.ijoic.wrapprovider.core.FtsProviderHelper}. May not be <code>null</code> for it.</p>
+   */
+  public String[] ftsColumns;
+
+  /**
+   * Row notification threshold.
+   *
+   * <p>When positive, item set updates and deletes look up the affected row ids in the same transaction
+   * and notify each item uri if no more than this many rows changed, or the item set uri otherwise.
+   * Writes affecting no row send no notification. Disabled when not positive.</p>
+   */
+  public int rowNotificationThreshold;
+
+  /**
+   * Change log enabled.
+   *
+   * <p>Records (sequence, row id, op) for every insert, update and delete of the table in "&lt;table&gt;_changes",
+   * served incrementally by the "&lt;itemSet&gt;/_changes?since=N" uri, see {@link com.ijoic.wrapprovider.core.ChangeLog}.
+   * The log is created or dropped each time the database is created or upgraded, so toggling it needs a version bump.
+   * Rows removed by a raw "INSERT OR REPLACE" conflict are not logged, as SQLite skips delete triggers for them.</p>
+   */
+  public boolean changeLogEnabled;
+
+  /**
+   * Max change log size.
+   *
+   * <p>Compaction keeps only the latest change of each row, then drops the oldest changes beyond this size,
+   * asking clients behind them for a full sync. It runs after a write once a quarter of this size has been logged
+   * since the last compaction, counted in logged rows, synchronously on the writing thread, so that write takes longer.
+   * A single write may exceed the bound until it completes. Not bounded when not positive.</p>
+   */
+  public int changeLogMaxSize = 10000;
 }
@@ -0,0 +1,209 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 聚合查询
+ *
+ * <p>在SQLite中计算计数及聚合值，仅返回结果行，无需将数据行填充至CursorWindow。</p>
+ *
+ * <p>示例：<code>content://com.example.app/notes/_count</code>；
+ * <code>content://com.example.app/notes/_aggregate?aggregate=max:modified&amp;aggregate=count:*&amp;group_by=category</code>，
+ * 结果列名为"max_modified"、"count"等。均支持选择条件。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class AggregateQuery {
+
+  /**
+   * 计数路径
+   */
+  public static final String PATH_COUNT = "_count";
+
+  /**
+   * 聚合路径
+   */
+  public static final String PATH_AGGREGATE = "_aggregate";
+
+  /**
+   * 聚合项查询参数（可重复），格式为"函数:列"，函数为count、sum、total、avg、min或max
+   */
+  public static final String QUERY_PARAMETER_AGGREGATE = "aggregate";
+
+  /**
+   * 分组列查询参数
+   */
+  public static final String QUERY_PARAMETER_GROUP_BY = "group_by";
+
+  /**
+   * 计数结果列
+   */
+  public static final String COLUMN_COUNT = "_count";
+
+  /**
+   * 以Bundle返回聚合结果的方法
+   *
+   * <p>通过{@link android.content.ContentProvider#call(String, String, Bundle)}调用，参数为计数或聚合URI，
+   * 附加参数可包含{@link #EXTRA_SELECTION}及{@link #EXTRA_SELECTION_ARGS}。
+   * 返回第一行各列值；分组时另以{@link #EXTRA_ROWS}返回全部行。与查询相同，需要该URI的读取权限。</p>
+   */
+  public static final String METHOD_AGGREGATE = "aggregate";
+
+  /**
+   * 选择条件（String）
+   */
+  public static final String EXTRA_SELECTION = "selection";
+
+  /**
+   * 选择条件参数（String[]）
+   */
+  public static final String EXTRA_SELECTION_ARGS = "selection_args";
+
+  /**
+   * 分组结果行（ArrayList&lt;Bundle&gt;）
+   */
+  public static final String EXTRA_ROWS = "rows";
+
+  /**
+   * 聚合结果MIME类型
+   */
+  public static final String MIME_TYPE = "vnd.android.cursor.dir/vnd.wrapprovider.aggregate";
+
+  private static final Set<String> FUNCTIONS = new HashSet<>(Arrays.asList("count", "sum", "total", "avg", "min", "max"));
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  private AggregateQuery() {
+  }
+
+  /**
+   * 构建聚合语句
+   *
+   * @param tableName 数据表名称
+   * @param columnMap 数据表列映射，为空时仅校验列名格式
+   * @param uri 聚合URI
+   * @param count 是否为计数
+   * @param selection 选择条件
+   * @return 聚合语句
+   */
+  @NonNull
+  static String buildSql(@NonNull String tableName, @NonNull Map<String, String> columnMap, @NonNull Uri uri, boolean count, @Nullable String selection) {
+    StringBuilder sql = new StringBuilder(128);
+    sql.append("SELECT ");
+    String groupBy = null;
+
+    if (count) {
+      sql.append("COUNT(*) AS ").append(COLUMN_COUNT);
+
+    } else {
+      List<String> aggregates = uri.getQueryParameters(QUERY_PARAMETER_AGGREGATE);
+      groupBy = uri.getQueryParameter(QUERY_PARAMETER_GROUP_BY);
+
+      if (aggregates.isEmpty()) {
+        throw new IllegalArgumentException("aggregate not found: " + uri);
+      }
+      if (!TextUtils.isEmpty(groupBy)) {
+        checkColumn(columnMap, groupBy);
+        sql.append(groupBy).append(',');
+      }
+      for (int i = 0; i < aggregates.size(); ++i) {
+        String aggregate = aggregates.get(i);
+        int separator = aggregate.indexOf(':');
+        String function = (separator > 0 ? aggregate.substring(0, separator) : aggregate).toLowerCase(Locale.US);
+        String column = separator > 0 ? aggregate.substring(separator + 1) : "*";
+
+        if (!FUNCTIONS.contains(function)) {
+          throw new IllegalArgumentException("unsupported aggregate: " + aggregate);
+        }
+        if ("*".equals(column)) {
+          if (!"count".equals(function)) {
+            throw new IllegalArgumentException("unsupported aggregate: " + aggregate);
+          }
+        } else {
+          checkColumn(columnMap, column);
+        }
+        sql.append(i > 0 ? "," : "").append(function.toUpperCase(Locale.US)).append('(').append(column).append(") AS ")
+          .append("*".equals(column) ? function : function + "_" + column);
+      }
+    }
+    sql.append(" FROM ").append(tableName);
+
+    if (!TextUtils.isEmpty(selection)) {
+      sql.append(" WHERE ").append(selection);
+    }
+    if (!TextUtils.isEmpty(groupBy)) {
+      sql.append(" GROUP BY ").append(groupBy).append(" ORDER BY ").append(groupBy);
+    }
+    return sql.toString();
+  }
+
+  private static void checkColumn(@NonNull Map<String, String> columnMap, @NonNull String column) {
+    if (!IDENTIFIER.matcher(column).matches() || (!columnMap.isEmpty() && !columnMap.containsKey(column) && !"_id".equals(column))) {
+      throw new IllegalArgumentException("unknown column: " + column);
+    }
+  }
+
+  /**
+   * 将聚合结果转换为Bundle
+   *
+   * @param c 聚合结果
+   * @param grouped 是否分组
+   * @return 聚合结果
+   */
+  @NonNull
+  static Bundle toBundle(@NonNull Cursor c, boolean grouped) {
+    Bundle result = new Bundle();
+    ArrayList<Bundle> rows = grouped ? new ArrayList<Bundle>(c.getCount()) : null;
+
+    try {
+      while (c.moveToNext()) {
+        Bundle row = new Bundle();
+
+        for (int i = 0, columnCount = c.getColumnCount(); i < columnCount; ++i) {
+          String name = c.getColumnName(i);
+
+          switch (c.getType(i)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+              row.putLong(name, c.getLong(i));
+              break;
+            case Cursor.FIELD_TYPE_FLOAT:
+              row.putDouble(name, c.getDouble(i));
+              break;
+            case Cursor.FIELD_TYPE_STRING:
+              row.putString(name, c.getString(i));
+              break;
+            default:
+              break;
+          }
+        }
+        if (c.getPosition() == 0) {
+          result.putAll(row);
+        }
+        if (rows == null) {
+          break;
+        }
+        rows.add(row);
+      }
+    } finally {
+      c.close();
+    }
+    if (rows != null) {
+      result.putParcelableArrayList(EXTRA_ROWS, rows);
+    }
+    return result;
+  }
+}
@@ -5,19 +5,35 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
+import android.util.Log;
 
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.IndexConfig;
 import com.ijoic.wrapprovider.TableConfig;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * 基础数据库提供器-帮助器
@@ -25,18 +41,129 @@ import java.util.Map;
  * @author ijoic 963505345@qq.com
  * @version 1.0
  */
-public abstract class BaseProviderHelper implements ProviderHelper {
+public abstract class BaseProviderHelper implements ExtendedProviderHelper {
+
+  private static final String TAG = "BaseProviderHelper";
+
+  /**
+   * 数据表导出路径
+   *
+   * <p>示例：<code>content://com.example.app/notes/_export?format=csv</code>，通过{@link android.content.ContentResolver#openInputStream(Uri)}读取。
+   * getType按format返回{@link TableExporter#MIME_TYPE_CSV}或{@link TableExporter#MIME_TYPE_BINARY}；
+   * API 19及以上导出失败时读取端抛出IOException，不会将截断的数据视为完整导出。
+   * 导出按"_id"分块读取，不是一致性快照，详见{@link TableExporter}。</p>
+   */
+  public static final String PATH_EXPORT = "_export";
+
+  /**
+   * 插入或更新查询参数
+   *
+   * <p>示例：<code>content://com.example.app/notes?upsert=true</code>，按{@link TableConfig#conflictColumns}插入或更新，支持insert及bulkInsert。</p>
+   */
+  public static final String QUERY_PARAMETER_UPSERT = "upsert";
+
+  /**
+   * 批量插入或更新方法
+   *
+   * <p>通过{@link android.content.ContentProvider#call(String, String, Bundle)}调用，参数为数据集URI，
+   * 附加参数{@link #EXTRA_VALUES}为插入值列表；返回{@link #EXTRA_ROW_IDS}及{@link #EXTRA_OUTCOMES}。</p>
+   */
+  public static final String METHOD_UPSERT = "upsert";
+
+  /**
+   * 插入值列表（ArrayList&lt;ContentValues&gt;）
+   */
+  public static final String EXTRA_VALUES = "values";
+
+  /**
+   * 各行行ID（long[]）
+   */
+  public static final String EXTRA_ROW_IDS = "row_ids";
+
+  /**
+   * 各行插入或更新结果（int[]，{@link #UPSERT_INSERTED}或{@link #UPSERT_UPDATED}）
+   */
+  public static final String EXTRA_OUTCOMES = "outcomes";
+
+  /**
+   * 插入或更新结果：已插入
+   */
+  public static final int UPSERT_INSERTED = 1;
+
+  /**
+   * 插入或更新结果：已更新
+   */
+  public static final int UPSERT_UPDATED = 2;
+
+  /**
+   * 按ID列表批量删除方法
+   *
+   * <p>通过{@link android.content.ContentProvider#call(String, String, Bundle)}调用，参数为数据集URI，
+   * 附加参数{@link #EXTRA_IDS}为行ID列表；返回{@link #EXTRA_COUNT}。需要数据集URI的写入权限。</p>
+   */
+  public static final String METHOD_DELETE_BY_IDS = "delete_by_ids";
+
+  /**
+   * 按ID列表批量更新方法
+   *
+   * <p>通过{@link android.content.ContentProvider#call(String, String, Bundle)}调用，参数为数据集URI，
+   * 附加参数{@link #EXTRA_IDS}为行ID列表，{@link #EXTRA_VALUES}为更新值：仅一项时更新全部行，否则须与ID一一对应；
+   * 更新值不可为空；返回{@link #EXTRA_COUNT}。需要数据集URI的写入权限。</p>
+   */
+  public static final String METHOD_UPDATE_BY_IDS = "update_by_ids";
+
+  /**
+   * 行ID列表（long[]）
+   */
+  public static final String EXTRA_IDS = "ids";
+
+  /**
+   * 影响行数（int）
+   */
+  public static final String EXTRA_COUNT = "count";
+
+  /**
+   * SQLite单条语句最大参数个数（SQLITE_MAX_VARIABLE_NUMBER默认值）
+   */
+  private static final int MAX_BIND_ARGS = 999;
+
+  /**
+   * 列名格式
+   */
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
 
   @NonNull
   private TableConfig tableConfig;
   private Map<String, String> projectionMap;
 
   private SQLiteOpenHelper databaseHelper;
+  private NotificationDispatcher notificationDispatcher;
+  private SlowOperationLog slowOperationLog;
+  private StatementCache statementCache;
+  private QueryCache queryCache;
+  private MigrationRegistry migrationRegistry;
+  private volatile boolean sharedDatabase;
+  private WriteBehindQueue writeBehindQueue;
+  private volatile Context writeBehindContext;
+  private final AtomicLong changeLogCompactedSequence = new AtomicLong();
+
+  private final Runnable invalidateQueryCache = new Runnable() {
+    @Override
+    public void run() {
+      if (queryCache != null) {
+        queryCache.invalidate();
+      }
+    }
+  };
 
   // match code
   private int baseGenMatchCode;
   private int matchCodeItem;
   private int matchCodeItemSet;
+  private int matchCodeExport;
+  private int matchCodeCount;
+  private int matchCodeAggregate;
+  private int matchCodeChanges;
 
   /**
    * 构造函数
@@ -44,10 +171,31 @@ public abstract class BaseProviderHelper implements ProviderHelper {
   public BaseProviderHelper() {
     matchCodeItem = genMatchCode();
     matchCodeItemSet = genMatchCode();
+    matchCodeExport = genMatchCode();
+    matchCodeCount = genMatchCode();
+    matchCodeAggregate = genMatchCode();
+    matchCodeChanges = genMatchCode();
     tableConfig = new TableConfig();
     projectionMap = new HashMap<>();
     onInitTableConfig(tableConfig);
     initProjectionMap();
+    migrationRegistry = new MigrationRegistry();
+    onInitMigrations(migrationRegistry);
+    statementCache = new StatementCache(tableConfig.tableName, tableConfig.hackColumn);
+
+    if (tableConfig.queryCacheSize > 0) {
+      queryCache = new QueryCache(tableConfig.queryCacheSize, tableConfig.queryCacheMaxRows);
+    }
+    if (tableConfig.writeBehindEnabled) {
+      writeBehindQueue = new WriteBehindQueue(
+        tableConfig.tableName,
+        tableConfig.writeBehindCapacity,
+        tableConfig.writeBehindBatchSize,
+        tableConfig.writeBehindFlushIntervalMillis,
+        tableConfig.writeBehindOverflowPolicy,
+        writeBehindWriter
+      );
+    }
   }
 
   /**
@@ -113,165 +261,1271 @@ public abstract class BaseProviderHelper implements ProviderHelper {
   @Override
   public void setDatabaseHelper(@NonNull SQLiteOpenHelper databaseHelper) {
     this.databaseHelper = databaseHelper;
+    statementCache.clear();
+  }
+
+  @Nullable
+  @Override
+  public DatabaseConfig getShardConfig() {
+    return tableConfig.databaseConfig;
+  }
+
+  @Override
+  public void setNotificationDispatcher(@Nullable NotificationDispatcher dispatcher) {
+    this.notificationDispatcher = dispatcher;
+  }
+
+  @Override
+  public void setSlowOperationLog(@Nullable SlowOperationLog slowOperationLog) {
+    this.slowOperationLog = slowOperationLog;
   }
 
   /**
-   * 获取数据库帮助器
+   * 发送变更通知
    *
-   * @return 数据库帮助器
+   * @param context 上下文
+   * @param uri 变更URI
    */
-  protected SQLiteOpenHelper getDatabaseHelper() {
-    return databaseHelper;
+  protected void notifyChange(Context context, @NonNull Uri uri) {
+    BatchNotifier.notifyChange(context, uri, notificationDispatcher);
   }
 
-  @Override
-  public void onUpgradeDatabase(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
-    db.execSQL("DROP TABLE IF EXISTS " + tableConfig.tableName);
-    onCreateDatabase(db);
+  /**
+   * 获取查询结果缓存
+   *
+   * @return 查询结果缓存，未启用时返回空
+   */
+  @Nullable
+  public QueryCache getQueryCache() {
+    return queryCache;
   }
 
-  @Override
-  public void initUriMatcher(@NonNull UriMatcher uriMatcher, @NonNull String authority, int matchMask) {
-    uriMatcher.addURI(authority, tableConfig.itemSet, matchCodeItemSet | matchMask);
-    uriMatcher.addURI(authority, tableConfig.itemSet + "/#", matchCodeItem | matchMask);
+  /**
+   * 数据表变更回调
+   *
+   * <p>数据写入后调用，使查询结果缓存失效。批量操作期间会在批量操作结束后再次失效。</p>
+   */
+  protected void onTableChanged() {
+    if (queryCache != null) {
+      queryCache.invalidate();
+      BatchNotifier.runAfterBatch(invalidateQueryCache);
+    }
+    checkChangeLogSize();
   }
 
-  @Override
-  public String getMimeType(int matchCode) {
-    if (matchCode == matchCodeItemSet) {
-      return tableConfig.contentType;
+  /**
+   * 检查变更日志大小
+   *
+   * <p>启用变更日志且{@link TableConfig#changeLogMaxSize}为正数时，按日志序号计算上次压缩后新增的变更行数，
+   * 超过上限的四分之一时压缩日志。压缩在当前写入线程中同步执行，会延长触发压缩的写入操作的耗时。</p>
+   */
+  void checkChangeLogSize() {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+    int changeLogMaxSize = tableConfig.changeLogMaxSize;
+
+    if (databaseHelper == null || !tableConfig.changeLogEnabled || changeLogMaxSize <= 0) {
+      return;
     }
-    if (matchCode == matchCodeItem) {
-      return tableConfig.contentItemType;
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    long sequence = ChangeLog.queryMaxSequence(db, tableConfig.tableName);
+    long compactedSequence = changeLogCompactedSequence.get();
+
+    if (sequence < compactedSequence) {
+      // the log was recreated behind this helper, count from its current end.
+      changeLogCompactedSequence.compareAndSet(compactedSequence, sequence);
+      return;
+    }
+    if (sequence - compactedSequence >= Math.max(changeLogMaxSize / 4, 1) && changeLogCompactedSequence.compareAndSet(compactedSequence, sequence)) {
+      ChangeLog.compact(db, tableConfig.tableName, changeLogMaxSize);
     }
-    return null;
   }
 
-  @Override
-  public Cursor query(int matchCode, Context context, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+  /**
+   * 压缩变更日志
+   *
+   * <p>写入后按新增变更行数自动调用，见{@link #checkChangeLogSize()}；也可在空闲时主动调用，避免阻塞写入。</p>
+   */
+  public void compactChangeLog() {
     SQLiteOpenHelper databaseHelper = this.databaseHelper;
 
-    if (databaseHelper == null) {
-      return null;
+    if (databaseHelper != null && tableConfig.changeLogEnabled) {
+      SQLiteDatabase db = databaseHelper.getWritableDatabase();
+      changeLogCompactedSequence.set(ChangeLog.queryMaxSequence(db, tableConfig.tableName));
+      ChangeLog.compact(db, tableConfig.tableName, tableConfig.changeLogMaxSize);
     }
-    SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+  }
 
-    if (matchCode == matchCodeItemSet) {
-      qb.setTables(tableConfig.tableName);
-      qb.setProjectionMap(this.projectionMap);
+  /**
+   * 获取延迟写入队列
+   *
+   * <p>通过{@link WriteBehindQueue#flush()}等待已排队数据写入，不可在持有数据库事务的线程中调用。</p>
+   *
+   * @return 延迟写入队列，未启用时返回空
+   */
+  @Nullable
+  public WriteBehindQueue getWriteBehindQueue() {
+    return writeBehindQueue;
+  }
 
-    } else if (matchCode == matchCodeItem) {
-      qb.setTables(tableConfig.tableName);
-      qb.setProjectionMap(this.projectionMap);
-      qb.appendWhere("_id=" + getRowIdText(uri));
+  private final WriteBehindQueue.Writer writeBehindWriter = new WriteBehindQueue.Writer() {
+    @Override
+    public void writeBatch(@NonNull List<ContentValues> batch) {
+      SQLiteDatabase db = getWritableDatabase();
 
-    } else {
-      throw new IllegalArgumentException("unkonwn uri: " + uri);
+      db.beginTransaction();
+      try {
+        for (ContentValues item : batch) {
+          if (statementCache.insert(db, item) <= 0L) {
+            throw new SQLException("failed to insert row into " + tableConfig.contentUri);
+          }
+        }
+        db.setTransactionSuccessful();
+      } finally {
+        db.endTransaction();
+      }
+      onWriteBehindCompleted();
     }
 
-    if(TextUtils.isEmpty(sortOrder)) {
-      sortOrder = tableConfig.defaultSortOrder;
+    @Override
+    public void writeRow(@NonNull ContentValues values) {
+      if (statementCache.insert(getWritableDatabase(), values) <= 0L) {
+        throw new SQLException("failed to insert row into " + tableConfig.contentUri);
+      }
+      onWriteBehindCompleted();
     }
-    SQLiteDatabase db = databaseHelper.getReadableDatabase();
-    Cursor c = qb.query(db, projection, selection, selectionArgs, null, null, sortOrder);
 
-    if (c != null && context != null) {
-      c.setNotificationUri(context.getContentResolver(), uri);
+    @NonNull
+    private SQLiteDatabase getWritableDatabase() {
+      SQLiteOpenHelper databaseHelper = BaseProviderHelper.this.databaseHelper;
+
+      if (databaseHelper == null) {
+        throw new IllegalStateException("database not ready: " + tableConfig.tableName);
+      }
+      return databaseHelper.getWritableDatabase();
     }
-    return c;
+
+    private void onWriteBehindCompleted() {
+      Context context = writeBehindContext;
+      onTableChanged();
+
+      if (context != null) {
+        notifyChange(context, tableConfig.contentUri);
+        BatchNotifier.flush(context, notificationDispatcher);
+      }
+    }
+  };
+
+  /**
+   * 等待已排队的延迟写入数据写入数据库
+   *
+   * <p>在当前线程持有事务时跳过，避免与写入线程互相等待。</p>
+   *
+   * @param db 数据库
+   */
+  private void flushWriteBehind(@NonNull SQLiteDatabase db) {
+    if (writeBehindQueue != null && !db.inTransaction()) {
+      writeBehindQueue.flush();
+    }
+  }
+
+  /**
+   * 获取数据库帮助器
+   *
+   * @return 数据库帮助器
+   */
+  protected SQLiteOpenHelper getDatabaseHelper() {
+    return databaseHelper;
+  }
+
+  /**
+   * 初始化数据库迁移步骤
+   *
+   * <p>未注册任何迁移步骤时，升级数据库将删除并重建数据表；
+   * 已注册时逐级迁移，缺失步骤的处理见{@link MigrationRegistry}。</p>
+   *
+   * @param registry 迁移注册表
+   */
+  protected void onInitMigrations(@NonNull MigrationRegistry registry) {
+    // do nothing.
+  }
+
+  /**
+   * 获取数据库迁移注册表
+   *
+   * @return 迁移注册表
+   */
+  @NonNull
+  public MigrationRegistry getMigrationRegistry() {
+    return migrationRegistry;
+  }
+
+  /**
+   * 设置数据库是否由多个数据表共用
+   *
+   * <p>由{@link com.ijoic.wrapprovider.MultiTableContentProvider}按各数据库的帮助器个数设置，默认独占。
+   * 共用时，缺失迁移步骤的版本可能属于其他数据表，升级时跳过而不删除本数据表。</p>
+   *
+   * @param sharedDatabase 是否共用数据库
+   */
+  public void setSharedDatabase(boolean sharedDatabase) {
+    this.sharedDatabase = sharedDatabase;
   }
 
   @Override
-  public Uri insert(int matchCode, Context context, @NonNull Uri uri, ContentValues values) {
-    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+  public void onUpgradeDatabase(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+    MigrationRegistry registry = this.migrationRegistry;
 
-    if (databaseHelper == null) {
-      return null;
+    if (registry.isEmpty()) {
+      onDestructiveUpgrade(db);
+      return;
     }
-    SQLiteDatabase db = databaseHelper.getWritableDatabase();
-    long rowId = db.insert(tableConfig.tableName, tableConfig.hackColumn, values);
+    int missingVersion = registry.findMissingVersion(oldVersion, newVersion);
 
-    if(rowId > 0L) {
-      Uri insertedUri = ContentUris.withAppendedId(tableConfig.contentUri, rowId);
+    if (missingVersion != -1) {
+      if (sharedDatabase) {
+        Log.i(TAG, "no migration to " + missingVersion + " for " + tableConfig.tableName + ", assume unchanged");
 
-      if (context != null) {
-        context.getContentResolver().notifyChange(insertedUri, null);
+      } else if (registry.isFallbackToDestructive()) {
+        Log.w(TAG, "no migration to " + missingVersion + " for " + tableConfig.tableName + ", recreate table");
+        onDestructiveUpgrade(db);
+        return;
+
+      } else {
+        throw new IllegalStateException("migration not found: " + tableConfig.tableName + " " + (missingVersion - 1) + " -> " + missingVersion);
       }
-      return insertedUri;
+    }
+    registry.migrate(db, oldVersion, newVersion);
+  }
+
+  /**
+   * 删除并重建数据表
+   *
+   * <p>变更日志不随数据表删除，而是清空并记录{@link ChangeLog#OP_RESET}，序号继续递增，通知增量同步的客户端全量同步。</p>
+   *
+   * @param db 数据库
+   */
+  protected void onDestructiveUpgrade(@NonNull SQLiteDatabase db) {
+    ChangeLog.reset(db, tableConfig.tableName);
+    db.execSQL("DROP TABLE IF EXISTS " + tableConfig.tableName);
+    onCreateDatabase(db);
+    changeLogCompactedSequence.set(0L);
+  }
 
+  @Override
+  public void onSchemaChanged(@NonNull SQLiteDatabase db) {
+    syncIndexes(db);
+    checkSortOrderIndex(db);
+
+    if (tableConfig.changeLogEnabled) {
+      ChangeLog.install(db, tableConfig.tableName);
     } else {
-      throw new SQLException("failed to insert row into " + uri);
+      ChangeLog.uninstall(db, tableConfig.tableName);
     }
   }
 
-  @Override
-  public int delete(int matchCode, Context context, @NonNull Uri uri, String selection, String[] selectionArgs) {
-    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+  /**
+   * 同步数据表索引
+   *
+   * <p>按{@link TableConfig#indexes}创建缺失的索引，重建定义已变更的索引，并删除不再声明的"idx_&lt;table&gt;_"前缀索引。</p>
+   *
+   * @param db 数据库
+   */
+  protected void syncIndexes(@NonNull SQLiteDatabase db) {
+    String tableName = tableConfig.tableName;
+    Map<String, String> existingMap = new HashMap<>();
+    Cursor c = db.rawQuery("SELECT name, sql FROM sqlite_master WHERE type='index' AND tbl_name=? AND sql IS NOT NULL", new String[] {tableName});
 
-    if (databaseHelper == null) {
-      return 0;
+    try {
+      while (c.moveToNext()) {
+        existingMap.put(c.getString(0), c.getString(1));
+      }
+    } finally {
+      c.close();
     }
-    SQLiteDatabase db = databaseHelper.getWritableDatabase();
-    int count;
+    Set<String> declaredNames = new HashSet<>();
+    IndexConfig[] indexes = tableConfig.indexes;
 
-    if (matchCode == matchCodeItemSet) {
-      count = db.delete(tableConfig.tableName, selection, selectionArgs);
+    if (indexes != null) {
+      for (IndexConfig index : indexes) {
+        if (index == null || index.columns == null || index.columns.length == 0) {
+          continue;
+        }
+        String name = TextUtils.isEmpty(index.name) ? genIndexName(index) : index.name;
 
-    } else if (matchCode == matchCodeItem) {
-      count = db.delete(tableConfig.tableName, appendRowId(selection, uri), selectionArgs);
+        if (!TextUtils.isEmpty(index.where) && Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+          Log.w(TAG, "partial index not supported, skipped: " + name);
+          continue;
+        }
+        String sql = buildIndexSql(name, index);
+        String existingSql = existingMap.get(name);
+        declaredNames.add(name);
 
-    } else {
-      throw new IllegalArgumentException("unkonwn uri: " + uri);
+        if (sql.equals(existingSql)) {
+          continue;
+        }
+        if (existingSql != null) {
+          db.execSQL("DROP INDEX IF EXISTS " + name);
+        }
+        db.execSQL(sql);
+      }
     }
+    String managedPrefix = "idx_" + tableName + "_";
 
-    if (context != null) {
-      context.getContentResolver().notifyChange(uri, null);
+    for (String name : existingMap.keySet()) {
+      if (name.startsWith(managedPrefix) && !declaredNames.contains(name)) {
+        db.execSQL("DROP INDEX IF EXISTS " + name);
+      }
     }
-    return count;
   }
 
-  @Override
-  public int update(int matchCode, Context context, @NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
-    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+  @NonNull
+  private String genIndexName(@NonNull IndexConfig index) {
+    StringBuilder name = new StringBuilder(32);
+    name.append("idx_").append(tableConfig.tableName);
 
-    if (databaseHelper == null) {
-      return 0;
+    for (String column : index.columns) {
+      name.append('_').append(column.trim().split("\\s+")[0]);
     }
-    SQLiteDatabase db = databaseHelper.getWritableDatabase();
-    int count;
-
-    if (matchCode == matchCodeItemSet) {
-      count = db.update(tableConfig.tableName, values, selection, selectionArgs);
+    return name.toString();
+  }
 
-    } else if (matchCode == matchCodeItem) {
-      count = db.update(tableConfig.tableName, values, appendRowId(selection, uri), selectionArgs);
+  @NonNull
+  private String buildIndexSql(@NonNull String name, @NonNull IndexConfig index) {
+    StringBuilder sql = new StringBuilder(64);
+    sql.append(index.unique ? "CREATE UNIQUE INDEX " : "CREATE INDEX ").append(name).append(" ON ").append(tableConfig.tableName).append(" (");
 
-    } else {
-      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    for (int i = 0; i < index.columns.length; ++i) {
+      sql.append(i > 0 ? "," : "").append(index.columns[i].trim());
     }
+    sql.append(')');
 
-    if (context != null) {
-      context.getContentResolver().notifyChange(uri, null);
+    if (!TextUtils.isEmpty(index.where)) {
+      sql.append(" WHERE ").append(index.where);
     }
-    return count;
+    return sql.toString();
   }
 
-  private static String getRowIdText(@NonNull Uri itemUri) {
-    return itemUri.getPathSegments().get(1);
+  /**
+   * 检查默认排序是否由索引支持，排序需使用临时B树时输出警告
+   *
+   * @param db 数据库
+   */
+  private void checkSortOrderIndex(@NonNull SQLiteDatabase db) {
+    String sortOrder = tableConfig.defaultSortOrder;
+
+    if (TextUtils.isEmpty(sortOrder)) {
+      return;
+    }
+    Cursor c = db.rawQuery("EXPLAIN QUERY PLAN SELECT _id FROM " + tableConfig.tableName + " ORDER BY " + sortOrder, null);
+
+    try {
+      while (c.moveToNext()) {
+        String detail = c.getString(c.getColumnCount() - 1);
+
+        if (detail != null && detail.contains("TEMP B-TREE")) {
+          Log.w(TAG, "default sort order of " + tableConfig.tableName + " is not backed by an index: " + sortOrder);
+          break;
+        }
+      }
+    } finally {
+      c.close();
+    }
   }
 
-  private static String appendRowId(@Nullable String selection, @NonNull Uri itemUri) {
-    return appendRowId(selection, getRowIdText(itemUri));
+  @Override
+  public void onPrewarmDatabase(@NonNull SQLiteDatabase db) {
+    String[] warmUpQueries = tableConfig.warmUpQueries;
+
+    if (warmUpQueries == null) {
+      return;
+    }
+    for (String sql : warmUpQueries) {
+      if (TextUtils.isEmpty(sql)) {
+        continue;
+      }
+      Cursor c = db.rawQuery(sql, null);
+
+      try {
+        c.moveToFirst();
+      } finally {
+        c.close();
+      }
+    }
   }
 
-  private static String appendRowId(@Nullable String selection, @Nullable String rowId) {
-    if(selection == null) {
-      selection = "";
-    } else {
-      selection = selection + " AND ";
+  @Override
+  public void initUriMatcher(@NonNull UriMatcher uriMatcher, @NonNull String authority, int matchMask) {
+    uriMatcher.addURI(authority, tableConfig.itemSet, matchCodeItemSet | matchMask);
+    uriMatcher.addURI(authority, tableConfig.itemSet + "/#", matchCodeItem | matchMask);
+    uriMatcher.addURI(authority, tableConfig.itemSet + "/" + PATH_EXPORT, matchCodeExport | matchMask);
+    uriMatcher.addURI(authority, tableConfig.itemSet + "/" + AggregateQuery.PATH_COUNT, matchCodeCount | matchMask);
+    uriMatcher.addURI(authority, tableConfig.itemSet + "/" + AggregateQuery.PATH_AGGREGATE, matchCodeAggregate | matchMask);
+
+    if (tableConfig.changeLogEnabled) {
+      uriMatcher.addURI(authority, tableConfig.itemSet + "/" + ChangeLog.PATH_CHANGES, matchCodeChanges | matchMask);
     }
+  }
 
-    selection = selection + "(_id=" + rowId + ")";
-    return selection;
+  @Override
+  public String getMimeType(int matchCode, @NonNull Uri uri) {
+    if (matchCode == matchCodeExport) {
+      return TableExporter.getMimeType(uri.getQueryParameter(TableExporter.QUERY_PARAMETER_FORMAT));
+    }
+    return getMimeType(matchCode);
+  }
+
+  @Override
+  public String getMimeType(int matchCode) {
+    if (matchCode == matchCodeItemSet) {
+      return tableConfig.contentType;
+    }
+    if (matchCode == matchCodeItem) {
+      return tableConfig.contentItemType;
+    }
+    if (matchCode == matchCodeExport) {
+      return TableExporter.MIME_TYPE_CSV;
+    }
+    if (matchCode == matchCodeCount || matchCode == matchCodeAggregate) {
+      return AggregateQuery.MIME_TYPE;
+    }
+    if (matchCode == matchCodeChanges) {
+      return ChangeLog.MIME_TYPE;
+    }
+    return null;
+  }
+
+  @Override
+  public Cursor query(int matchCode, Context context, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return null;
+    }
+    if (matchCode == matchCodeChanges) {
+      if (!isPlainProjection(projection)) {
+        throw new IllegalArgumentException("unknown column in projection: " + uri);
+      }
+      flushWriteBehind(databaseHelper.getWritableDatabase());
+      Cursor c = ChangeLog.query(databaseHelper.getReadableDatabase(), tableConfig.tableName, uri, projection);
+
+      if (context != null) {
+        c.setNotificationUri(context.getContentResolver(), tableConfig.contentUri);
+      }
+      return c;
+    }
+    if (matchCode == matchCodeCount || matchCode == matchCodeAggregate) {
+      Cursor c = queryAggregate(matchCode, databaseHelper.getReadableDatabase(), uri, selection, selectionArgs);
+
+      if (context != null) {
+        c.setNotificationUri(context.getContentResolver(), uri);
+      }
+      return c;
+    }
+    KeysetPage page = null;
+
+    if (matchCode == matchCodeItemSet) {
+      page = KeysetPage.parse(uri, tableConfig.defaultSortOrder);
+    }
+    if (page != null) {
+      page.checkSortOrder(sortOrder);
+      projection = page.appendProjection(projection);
+      selection = page.appendSelection(selection);
+      selectionArgs = page.appendSelectionArgs(selectionArgs);
+      sortOrder = page.getSortOrder();
+
+    } else if(TextUtils.isEmpty(sortOrder)) {
+      sortOrder = tableConfig.defaultSortOrder;
+    }
+    QueryCache queryCache = this.queryCache;
+    String cacheKey = null;
+    long cacheGeneration = 0;
+
+    if (queryCache != null) {
+      cacheKey = QueryCache.buildKey(uri, projection, selection, selectionArgs, sortOrder);
+      Cursor c = queryCache.get(cacheKey);
+
+      if (c != null) {
+        if (page != null) {
+          c = page.wrap(c);
+        }
+        if (context != null) {
+          c.setNotificationUri(context.getContentResolver(), uri);
+        }
+        return c;
+      }
+      cacheGeneration = queryCache.getGeneration();
+    }
+    SlowOperationLog slowOperationLog = this.slowOperationLog;
+    long startTime = slowOperationLog != null ? System.nanoTime() : 0L;
+    String limit = page != null ? page.getLimit() : null;
+    Cursor c = queryDatabase(matchCode, databaseHelper, uri, projection, selection, selectionArgs, sortOrder, limit);
+
+    if (c != null && slowOperationLog != null) {
+      int rows = c.getCount();
+      long duration = System.nanoTime() - startTime;
+
+      if (slowOperationLog.isSlow(duration)) {
+        String where = matchCode == matchCodeItem ? appendRowId(selection) : selection;
+        String[] args = matchCode == matchCodeItem ? appendSelectionArg(selectionArgs, getRowIdText(uri)) : selectionArgs;
+        String sql = SQLiteQueryBuilder.buildQueryString(false, tableConfig.tableName, projection, where, null, null, sortOrder, limit);
+        slowOperationLog.record(databaseHelper.getReadableDatabase(), "query", tableConfig.tableName, sql, sql, args, duration, rows);
+      }
+    }
+
+    if (c != null && queryCache != null) {
+      c = queryCache.put(cacheKey, cacheGeneration, c);
+    }
+    if (c != null && page != null) {
+      c = page.wrap(c);
+    }
+    if (c != null && context != null) {
+      c.setNotificationUri(context.getContentResolver(), uri);
+    }
+    return c;
+  }
+
+  private Cursor queryDatabase(int matchCode, @NonNull SQLiteOpenHelper databaseHelper, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder, String limit) {
+    if (matchCode == matchCodeItem && TextUtils.isEmpty(selection) && isPlainProjection(projection)) {
+      return queryRow(databaseHelper.getReadableDatabase(), projection, getRowIdText(uri));
+    }
+    SQLiteQueryBuilder qb = new SQLiteQueryBuilder();
+
+    if (matchCode == matchCodeItemSet) {
+      qb.setTables(tableConfig.tableName);
+      qb.setProjectionMap(this.projectionMap);
+
+    } else if (matchCode == matchCodeItem) {
+      qb.setTables(tableConfig.tableName);
+      qb.setProjectionMap(this.projectionMap);
+      qb.appendWhere("_id=?");
+      selectionArgs = prependSelectionArg(getRowIdText(uri), selectionArgs);
+
+    } else {
+      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    }
+    SQLiteDatabase db = databaseHelper.getReadableDatabase();
+    return qb.query(db, projection, selection, selectionArgs, null, null, sortOrder, limit);
+  }
+
+  @Override
+  public Uri insert(int matchCode, Context context, @NonNull Uri uri, ContentValues values) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return null;
+    }
+    if (matchCode == matchCodeItemSet && values != null && isUpsert(uri)) {
+      long[] rowIds = upsert(context, new ContentValues[] {values}).getLongArray(EXTRA_ROW_IDS);
+      return ContentUris.withAppendedId(tableConfig.contentUri, rowIds[0]);
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    WriteBehindQueue writeBehindQueue = this.writeBehindQueue;
+
+    if (writeBehindQueue != null && matchCode == matchCodeItemSet && values != null && !db.inTransaction()) {
+      writeBehindContext = context;
+
+      if (writeBehindQueue.offer(values)) {
+        return tableConfig.contentUri;
+      }
+      if (!writeBehindQueue.isCallerRuns()) {
+        return null;
+      }
+    }
+    long rowId = statementCache.insert(db, values);
+
+    if(rowId > 0L) {
+      Uri insertedUri = ContentUris.withAppendedId(tableConfig.contentUri, rowId);
+      onTableChanged();
+      notifyChange(context, insertedUri);
+      return insertedUri;
+
+    } else {
+      throw new SQLException("failed to insert row into " + uri);
+    }
+  }
+
+  /**
+   * 使用预编译语句插入数据
+   *
+   * <p>插入语句按列集合缓存，参数由绑定器按列顺序（索引从1开始）绑定，适用于高频写入的数据表。</p>
+   *
+   * @param context 上下文
+   * @param columns 插入列
+   * @param binder 参数绑定器
+   * @return 插入结果
+   */
+  protected Uri insert(Context context, @NonNull String[] columns, @NonNull StatementBinder binder) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return null;
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    long rowId = statementCache.insert(db, columns, binder);
+
+    if(rowId > 0L) {
+      Uri insertedUri = ContentUris.withAppendedId(tableConfig.contentUri, rowId);
+      onTableChanged();
+      notifyChange(context, insertedUri);
+      return insertedUri;
+
+    } else {
+      throw new SQLException("failed to insert row into " + tableConfig.contentUri);
+    }
+  }
+
+  @Override
+  public int bulkInsert(int matchCode, Context context, @NonNull Uri uri, @NonNull ContentValues[] values) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return 0;
+    }
+    if (matchCode != matchCodeItemSet) {
+      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    }
+    if (isUpsert(uri)) {
+      return upsert(context, values, false).getLongArray(EXTRA_ROW_IDS).length;
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    int count = 0;
+    flushWriteBehind(db);
+
+    db.beginTransaction();
+    try {
+      for (ContentValues item : values) {
+        if (statementCache.insert(db, item) > 0L) {
+          ++count;
+        } else {
+          throw new SQLException("failed to insert row into " + uri);
+        }
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+
+    if (count > 0) {
+      onTableChanged();
+      notifyChange(context, uri);
+      BatchNotifier.flush(context, notificationDispatcher);
+    }
+    return count;
+  }
+
+  @Override
+  public int delete(int matchCode, Context context, @NonNull Uri uri, String selection, String[] selectionArgs) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return 0;
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    int count;
+    flushWriteBehind(db);
+    long startTime = slowOperationLog != null ? System.nanoTime() : 0L;
+
+    long[] changedIds = null;
+
+    if (matchCode == matchCodeItemSet) {
+      if (tableConfig.rowNotificationThreshold > 0) {
+        db.beginTransaction();
+        try {
+          changedIds = selectChangedIds(db, selection, selectionArgs);
+          count = db.delete(tableConfig.tableName, selection, selectionArgs);
+          db.setTransactionSuccessful();
+        } finally {
+          db.endTransaction();
+        }
+      } else {
+        count = db.delete(tableConfig.tableName, selection, selectionArgs);
+      }
+
+    } else if (matchCode == matchCodeItem) {
+      if (TextUtils.isEmpty(selection)) {
+        count = statementCache.deleteById(db, ContentUris.parseId(uri));
+      } else {
+        count = db.delete(tableConfig.tableName, appendRowId(selection), appendSelectionArg(selectionArgs, getRowIdText(uri)));
+      }
+
+    } else {
+      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    }
+    if (slowOperationLog != null) {
+      logSlowWrite(db, "delete", matchCode, uri, null, selection, selectionArgs, System.nanoTime() - startTime, count);
+    }
+
+    onTableChanged();
+    notifyRowsChanged(context, uri, count, changedIds);
+    return count;
+  }
+
+  @Override
+  public int update(int matchCode, Context context, @NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      return 0;
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    int count;
+    flushWriteBehind(db);
+    long startTime = slowOperationLog != null ? System.nanoTime() : 0L;
+
+    long[] changedIds = null;
+
+    if (matchCode == matchCodeItemSet) {
+      if (tableConfig.rowNotificationThreshold > 0) {
+        db.beginTransaction();
+        try {
+          changedIds = selectChangedIds(db, selection, selectionArgs);
+          count = db.update(tableConfig.tableName, values, selection, selectionArgs);
+          db.setTransactionSuccessful();
+        } finally {
+          db.endTransaction();
+        }
+      } else {
+        count = db.update(tableConfig.tableName, values, selection, selectionArgs);
+      }
+
+    } else if (matchCode == matchCodeItem) {
+      if (TextUtils.isEmpty(selection) && values != null && values.size() > 0) {
+        count = statementCache.updateById(db, values, ContentUris.parseId(uri));
+      } else {
+        count = db.update(tableConfig.tableName, values, appendRowId(selection), appendSelectionArg(selectionArgs, getRowIdText(uri)));
+      }
+
+    } else {
+      throw new IllegalArgumentException("unkonwn uri: " + uri);
+    }
+    if (slowOperationLog != null) {
+      logSlowWrite(db, "update", matchCode, uri, values, selection, selectionArgs, System.nanoTime() - startTime, count);
+    }
+
+    onTableChanged();
+    notifyRowsChanged(context, uri, count, changedIds);
+    return count;
+  }
+
+  /**
+   * 查询将被更新或删除的行ID
+   *
+   * <p>需与写入在同一事务中执行。最多查询 <code>rowNotificationThreshold + 1</code> 行，超出阈值时不再需要具体ID。</p>
+   *
+   * @param db 数据库
+   * @param selection 选择条件
+   * @param selectionArgs 选择条件参数
+   * @return 行ID
+   */
+  @NonNull
+  private long[] selectChangedIds(@NonNull SQLiteDatabase db, String selection, String[] selectionArgs) {
+    int limit = tableConfig.rowNotificationThreshold + 1;
+    String where = TextUtils.isEmpty(selection) ? "" : " WHERE " + selection;
+    Cursor c = db.rawQuery("SELECT _id FROM " + tableConfig.tableName + where + " LIMIT " + limit, selectionArgs);
+
+    try {
+      long[] ids = new long[c.getCount()];
+
+      for (int i = 0; c.moveToNext(); ++i) {
+        ids[i] = c.getLong(0);
+      }
+      return ids;
+    } finally {
+      c.close();
+    }
+  }
+
+  /**
+   * 发送更新或删除的变更通知
+   *
+   * <p>开启行级通知时，未影响任何行则不发送；影响行数不超过阈值时逐行发送数据项URI，否则发送原URI。</p>
+   *
+   * @param context 上下文
+   * @param uri 操作URI
+   * @param count 影响行数
+   * @param changedIds 数据集操作的行ID，未开启行级通知或非数据集操作时为空
+   */
+  private void notifyRowsChanged(Context context, @NonNull Uri uri, int count, @Nullable long[] changedIds) {
+    int threshold = tableConfig.rowNotificationThreshold;
+
+    if (threshold > 0 && count == 0) {
+      return;
+    }
+    if (changedIds == null || changedIds.length > threshold) {
+      notifyChange(context, uri);
+      return;
+    }
+    for (long id : changedIds) {
+      notifyChange(context, ContentUris.withAppendedId(tableConfig.contentUri, id));
+    }
+  }
+
+  @Nullable
+  @Override
+  public Bundle call(int matchCode, Context context, @NonNull Uri uri, @NonNull String method, @Nullable Bundle extras) {
+    if (matchCode == matchCodeItemSet && METHOD_UPSERT.equals(method)) {
+      ArrayList<ContentValues> values = extras != null ? extras.<ContentValues>getParcelableArrayList(EXTRA_VALUES) : null;
+
+      if (values == null) {
+        throw new IllegalArgumentException("upsert values not found: " + uri);
+      }
+      return upsert(context, values.toArray(new ContentValues[values.size()]));
+    }
+    if (matchCode == matchCodeItemSet && (METHOD_DELETE_BY_IDS.equals(method) || METHOD_UPDATE_BY_IDS.equals(method))) {
+      long[] ids = extras != null ? extras.getLongArray(EXTRA_IDS) : null;
+
+      if (ids == null) {
+        throw new IllegalArgumentException("ids not found: " + uri);
+      }
+      int count;
+
+      if (METHOD_DELETE_BY_IDS.equals(method)) {
+        count = deleteByIds(context, ids);
+      } else {
+        ArrayList<ContentValues> values = extras.getParcelableArrayList(EXTRA_VALUES);
+
+        if (values == null || values.isEmpty()) {
+          throw new IllegalArgumentException("update values not found: " + uri);
+        }
+        count = updateByIds(context, ids, values.toArray(new ContentValues[values.size()]));
+      }
+      Bundle result = new Bundle();
+      result.putInt(EXTRA_COUNT, count);
+      return result;
+    }
+    if ((matchCode == matchCodeCount || matchCode == matchCodeAggregate) && AggregateQuery.METHOD_AGGREGATE.equals(method)) {
+      SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+      if (databaseHelper == null) {
+        return null;
+      }
+      String selection = extras != null ? extras.getString(AggregateQuery.EXTRA_SELECTION) : null;
+      String[] selectionArgs = extras != null ? extras.getStringArray(AggregateQuery.EXTRA_SELECTION_ARGS) : null;
+      Cursor c = queryAggregate(matchCode, databaseHelper.getReadableDatabase(), uri, selection, selectionArgs);
+      return AggregateQuery.toBundle(c, uri.getQueryParameter(AggregateQuery.QUERY_PARAMETER_GROUP_BY) != null);
+    }
+    return null;
+  }
+
+  @Override
+  public boolean isWriteMethod(int matchCode, @NonNull String method) {
+    return matchCode == matchCodeItemSet
+      && (METHOD_UPSERT.equals(method) || METHOD_DELETE_BY_IDS.equals(method) || METHOD_UPDATE_BY_IDS.equals(method));
+  }
+
+  /**
+   * 执行计数或聚合查询
+   *
+   * @param matchCode 匹配码
+   * @param db 数据库
+   * @param uri 聚合URI
+   * @param selection 选择条件
+   * @param selectionArgs 选择条件参数
+   * @return 聚合结果
+   */
+  @NonNull
+  private Cursor queryAggregate(int matchCode, @NonNull SQLiteDatabase db, @NonNull Uri uri, String selection, String[] selectionArgs) {
+    String sql = AggregateQuery.buildSql(tableConfig.tableName, projectionMap, uri, matchCode == matchCodeCount, selection);
+    return db.rawQuery(sql, selectionArgs);
+  }
+
+  /**
+   * 按唯一键插入或更新数据
+   *
+   * <p>全部数据在同一事务中写入，并仅在提交后发送一次变更通知。按{@link TableConfig#conflictColumns}匹配已有行，
+   * 按{@link TableConfig#conflictResolution}更新或替换，不存在时插入。唯一键列为NULL时总是插入。返回全部行ID。</p>
+   *
+   * @param context 上下文
+   * @param values 插入值列表
+   * @return 结果，包含{@link #EXTRA_ROW_IDS}及{@link #EXTRA_OUTCOMES}
+   */
+  @NonNull
+  protected Bundle upsert(Context context, @NonNull ContentValues[] values) {
+    return upsert(context, values, true);
+  }
+
+  /**
+   * 按唯一键插入或更新数据
+   *
+   * <p>每行执行的语句：
+   * {@link TableConfig#CONFLICT_REPLACE}时按唯一键删除并插入，由删除行数得出结果；
+   * {@link TableConfig#CONFLICT_UPDATE}且无需行ID时按唯一键更新，未更新时插入；
+   * {@link TableConfig#CONFLICT_UPDATE}且需要行ID时先查询已有行ID，再按ID更新或插入。</p>
+   *
+   * @param context 上下文
+   * @param values 插入值列表
+   * @param returnRowIds 是否需要已更新行的行ID，不需要时对应行ID为0
+   * @return 结果，包含{@link #EXTRA_ROW_IDS}及{@link #EXTRA_OUTCOMES}
+   */
+  @NonNull
+  protected Bundle upsert(Context context, @NonNull ContentValues[] values, boolean returnRowIds) {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+    String[] keyColumns = tableConfig.conflictColumns;
+
+    if (databaseHelper == null) {
+      throw new IllegalStateException("database not ready: " + tableConfig.tableName);
+    }
+    if (keyColumns == null || keyColumns.length == 0) {
+      throw new IllegalStateException("conflict columns not configured: " + tableConfig.tableName);
+    }
+    SQLiteDatabase db = databaseHelper.getWritableDatabase();
+    long[] rowIds = new long[values.length];
+    int[] outcomes = new int[values.length];
+    flushWriteBehind(db);
+
+    db.beginTransaction();
+    try {
+      for (int i = 0; i < values.length; ++i) {
+        rowIds[i] = upsertRow(db, keyColumns, values[i], returnRowIds, outcomes, i);
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+
+    if (values.length > 0) {
+      onTableChanged();
+      notifyChange(context, values.length == 1 && rowIds[0] > 0L ? ContentUris.withAppendedId(tableConfig.contentUri, rowIds[0]) : tableConfig.contentUri);
+      BatchNotifier.flush(context, notificationDispatcher);
+    }
+    Bundle result = new Bundle();
+    result.putLongArray(EXTRA_ROW_IDS, rowIds);
+    result.putIntArray(EXTRA_OUTCOMES, outcomes);
+    return result;
+  }
+
+  /**
+   * 按ID列表批量删除数据
+   *
+   * <p>ID按参数上限分段，以"_id IN (...)"删除，全部分段在同一事务中执行，并仅在提交后发送一次变更通知。</p>
+   *
+   * @param context 上下文
+   * @param ids 行ID列表
+   * @return 删除行数
+   */
+  protected int deleteByIds(Context context, @NonNull long[] ids) {
+    SQLiteDatabase db = getWritableDatabaseOrThrow();
+    int count = 0;
+    flushWriteBehind(db);
+
+    db.beginTransaction();
+    try {
+      count = executeByIds(db, "DELETE FROM " + tableConfig.tableName, null, ids);
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+    onIdsChanged(context, ids, count);
+    return count;
+  }
+
+  /**
+   * 按ID列表批量更新数据
+   *
+   * <p>更新值仅一项时，按参数上限分段以"_id IN (...)"更新；否则按ID逐行更新。
+   * 全部写入在同一事务中执行，并仅在提交后发送一次变更通知。</p>
+   *
+   * @param context 上下文
+   * @param ids 行ID列表
+   * @param values 更新值，仅一项或与ID一一对应
+   * @return 更新行数
+   */
+  protected int updateByIds(Context context, @NonNull long[] ids, @NonNull ContentValues[] values) {
+    if (values.length != 1 && values.length != ids.length) {
+      throw new IllegalArgumentException("update values count mismatch: " + values.length + " values for " + ids.length + " ids");
+    }
+    for (ContentValues item : values) {
+      if (item == null || item.size() == 0) {
+        throw new IllegalArgumentException("empty update values");
+      }
+    }
+    SQLiteDatabase db = getWritableDatabaseOrThrow();
+    int count = 0;
+    flushWriteBehind(db);
+
+    db.beginTransaction();
+    try {
+      if (values.length == 1) {
+        String[] columns = values[0].keySet().toArray(new String[values[0].size()]);
+        Object[] columnValues = new Object[columns.length];
+        StringBuilder sql = new StringBuilder(64);
+        sql.append("UPDATE ").append(tableConfig.tableName).append(" SET ");
+
+        for (int i = 0; i < columns.length; ++i) {
+          sql.append(i > 0 ? "," : "").append(columns[i]).append("=?");
+          columnValues[i] = values[0].get(columns[i]);
+        }
+        count = executeByIds(db, sql.toString(), columnValues, ids);
+
+      } else {
+        for (int i = 0; i < ids.length; ++i) {
+          count += statementCache.updateById(db, values[i], ids[i]);
+        }
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+    onIdsChanged(context, ids, count);
+    return count;
+  }
+
+  /**
+   * 按ID分段执行语句
+   *
+   * <p>每段ID个数与前置参数个数之和不超过{@link #MAX_BIND_ARGS}，完整分段复用同一预编译语句。</p>
+   *
+   * @param db 数据库
+   * @param sqlPrefix 语句前缀（不含WHERE）
+   * @param prefixArgs 前置参数
+   * @param ids 行ID列表
+   * @return 影响行数
+   */
+  private static int executeByIds(@NonNull SQLiteDatabase db, @NonNull String sqlPrefix, @Nullable Object[] prefixArgs, @NonNull long[] ids) {
+    int prefixCount = prefixArgs != null ? prefixArgs.length : 0;
+    int chunkSize = MAX_BIND_ARGS - prefixCount;
+
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("too many update columns: " + prefixCount);
+    }
+    int count = 0;
+    SQLiteStatement statement = null;
+    int statementSize = 0;
+
+    try {
+      for (int start = 0; start < ids.length; start += chunkSize) {
+        int size = Math.min(chunkSize, ids.length - start);
+
+        if (statement == null || statementSize != size) {
+          if (statement != null) {
+            statement.close();
+          }
+          statement = db.compileStatement(buildIdsSql(sqlPrefix, size));
+          statementSize = size;
+        }
+        for (int i = 0; i < prefixCount; ++i) {
+          DatabaseUtils.bindObjectToProgram(statement, i + 1, prefixArgs[i]);
+        }
+        for (int i = 0; i < size; ++i) {
+          statement.bindLong(prefixCount + i + 1, ids[start + i]);
+        }
+        count += statement.executeUpdateDelete();
+        statement.clearBindings();
+      }
+    } finally {
+      if (statement != null) {
+        statement.close();
+      }
+    }
+    return count;
+  }
+
+  @NonNull
+  private static String buildIdsSql(@NonNull String sqlPrefix, int size) {
+    StringBuilder sql = new StringBuilder(sqlPrefix.length() + size * 2 + 16);
+    sql.append(sqlPrefix).append(" WHERE _id IN (");
+
+    for (int i = 0; i < size; ++i) {
+      sql.append(i > 0 ? ",?" : "?");
+    }
+    sql.append(')');
+    return sql.toString();
+  }
+
+  private void onIdsChanged(Context context, @NonNull long[] ids, int count) {
+    if (count > 0) {
+      onTableChanged();
+      notifyRowsChanged(context, tableConfig.contentUri, count, tableConfig.rowNotificationThreshold > 0 ? ids : null);
+      BatchNotifier.flush(context, notificationDispatcher);
+    }
+  }
+
+  @NonNull
+  private SQLiteDatabase getWritableDatabaseOrThrow() {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (databaseHelper == null) {
+      throw new IllegalStateException("database not ready: " + tableConfig.tableName);
+    }
+    return databaseHelper.getWritableDatabase();
+  }
+
+  private long upsertRow(@NonNull SQLiteDatabase db, @NonNull String[] keyColumns, @NonNull ContentValues values, boolean returnRowIds,
+                         @NonNull int[] outcomes, int index) {
+    for (String column : keyColumns) {
+      if (!values.containsKey(column)) {
+        throw new IllegalArgumentException("upsert values missing conflict column: " + column);
+      }
+    }
+    long rowId;
+
+    if (tableConfig.conflictResolution == TableConfig.CONFLICT_REPLACE) {
+      // delete explicitly: a REPLACE conflict fires no delete trigger without recursive_triggers,
+      // which would leave the old row in the change log and the FTS table.
+      outcomes[index] = statementCache.deleteByKey(db, keyColumns, values) > 0 ? UPSERT_UPDATED : UPSERT_INSERTED;
+      rowId = statementCache.insertOrReplace(db, values);
+
+    } else if (!returnRowIds) {
+      if (statementCache.updateByKey(db, values, keyColumns) > 0) {
+        outcomes[index] = UPSERT_UPDATED;
+        return 0L;
+      }
+      outcomes[index] = UPSERT_INSERTED;
+      rowId = statementCache.insert(db, values);
+
+    } else {
+      rowId = statementCache.queryIdByKey(db, keyColumns, values);
+      outcomes[index] = rowId > 0L ? UPSERT_UPDATED : UPSERT_INSERTED;
+
+      if (rowId > 0L) {
+        statementCache.updateById(db, values, rowId);
+      } else {
+        rowId = statementCache.insert(db, values);
+      }
+    }
+    if (rowId <= 0L) {
+      throw new SQLException("failed to upsert row into " + tableConfig.contentUri);
+    }
+    return rowId;
+  }
+
+  private static boolean isUpsert(@NonNull Uri uri) {
+    return uri.getBooleanQueryParameter(QUERY_PARAMETER_UPSERT, false);
+  }
+
+  private void logSlowWrite(@NonNull SQLiteDatabase db, @NonNull String operation, int matchCode, @NonNull Uri uri, @Nullable ContentValues values,
+                            String selection, String[] selectionArgs, long duration, int rows) {
+    SlowOperationLog slowOperationLog = this.slowOperationLog;
+
+    if (slowOperationLog == null || !slowOperationLog.isSlow(duration)) {
+      return;
+    }
+    String where = matchCode == matchCodeItem ? appendRowId(selection) : selection;
+    String[] args = matchCode == matchCodeItem ? appendSelectionArg(selectionArgs, getRowIdText(uri)) : selectionArgs;
+    String whereClause = TextUtils.isEmpty(where) ? "" : " WHERE " + where;
+    StringBuilder sql = new StringBuilder(64);
+
+    if (values != null) {
+      sql.append("UPDATE ").append(tableConfig.tableName).append(" SET ");
+      int index = 0;
+
+      for (String column : values.keySet()) {
+        sql.append(index++ > 0 ? "," : "").append(column).append("=?");
+      }
+    } else {
+      sql.append("DELETE FROM ").append(tableConfig.tableName);
+    }
+    sql.append(whereClause);
+    String explainSql = "SELECT _id FROM " + tableConfig.tableName + whereClause;
+    slowOperationLog.record(db, operation, tableConfig.tableName, sql.toString(), explainSql, args, duration, rows);
+  }
+
+  private static String getRowIdText(@NonNull Uri itemUri) {
+    return itemUri.getPathSegments().get(1);
+  }
+
+  @Override
+  public ParcelFileDescriptor openFile(int matchCode, Context context, @NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    SQLiteOpenHelper databaseHelper = this.databaseHelper;
+
+    if (matchCode != matchCodeExport) {
+      throw new FileNotFoundException("unsupported uri: " + uri);
+    }
+    if (!"r".equals(mode)) {
+      throw new FileNotFoundException("export is read only: " + uri);
+    }
+    if (databaseHelper == null) {
+      throw new FileNotFoundException("database not ready: " + uri);
+    }
+    ParcelFileDescriptor[] pipe;
+
+    try {
+      pipe = TableExporter.createPipe();
+    } catch (IOException e) {
+      throw new FileNotFoundException("create pipe failed: " + e.getMessage());
+    }
+    String format = uri.getQueryParameter(TableExporter.QUERY_PARAMETER_FORMAT);
+    new TableExporter(databaseHelper.getReadableDatabase(), tableConfig.tableName, tableConfig.columns, format).start(pipe[1]);
+    return pipe[0];
+  }
+
+  /**
+   * 按ID查询单行数据
+   *
+   * <p>不经过SQLiteQueryBuilder，直接以绑定参数执行查询，查询数据集须已由{@link #isPlainProjection(String[])}校验。
+   * 查询数据集为空时，与SQLiteQueryBuilder相同，按映射表顺序查询全部已配置列，未配置列时查询全部列。</p>
+   *
+   * @param db 数据库
+   * @param projection 查询数据集
+   * @param rowId 行ID
+   * @return 查询结果
+   */
+  private Cursor queryRow(@NonNull SQLiteDatabase db, @Nullable String[] projection, @NonNull String rowId) {
+    if (projection == null && !projectionMap.isEmpty()) {
+      projection = projectionMap.values().toArray(new String[projectionMap.size()]);
+    }
+    StringBuilder sql = new StringBuilder(64);
+    sql.append("SELECT ");
+
+    if (projection == null || projection.length == 0) {
+      sql.append('*');
+    } else {
+      for (int i = 0; i < projection.length; ++i) {
+        sql.append(i > 0 ? "," : "").append(projection[i]);
+      }
+    }
+    sql.append(" FROM ").append(tableConfig.tableName).append(" WHERE _id=? LIMIT 1");
+    return db.rawQuery(sql.toString(), new String[] {rowId});
+  }
+
+  /**
+   * 判断查询数据集是否可直接拼接至语句
+   *
+   * <p>各项须为列名，且已配置{@link TableConfig#columns}时须为其中的列。</p>
+   *
+   * @param projection 查询数据集
+   * @return 查询数据集为空或各项均为已配置列名时返回true
+   */
+  boolean isPlainProjection(@Nullable String[] projection) {
+    if (projection == null) {
+      return true;
+    }
+    boolean mapped = !projectionMap.isEmpty();
+
+    for (String column : projection) {
+      if (column == null || !IDENTIFIER.matcher(column).matches() || (mapped && !projectionMap.containsKey(column))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String appendRowId(@Nullable String selection) {
+    if (TextUtils.isEmpty(selection)) {
+      return "_id=?";
+    }
+    return "(" + selection + ") AND (_id=?)";
+  }
+
+  @NonNull
+  private static String[] appendSelectionArg(@Nullable String[] selectionArgs, @NonNull String arg) {
+    if (selectionArgs == null || selectionArgs.length == 0) {
+      return new String[] {arg};
+    }
+    String[] args = new String[selectionArgs.length + 1];
+    System.arraycopy(selectionArgs, 0, args, 0, selectionArgs.length);
+    args[selectionArgs.length] = arg;
+    return args;
+  }
+
+  @NonNull
+  private static String[] prependSelectionArg(@NonNull String arg, @Nullable String[] selectionArgs) {
+    if (selectionArgs == null || selectionArgs.length == 0) {
+      return new String[] {arg};
+    }
+    String[] args = new String[selectionArgs.length + 1];
+    args[0] = arg;
+    System.arraycopy(selectionArgs, 0, args, 1, selectionArgs.length);
+    return args;
   }
 }
@@ -0,0 +1,141 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 批量操作-变更通知器
+ *
+ * <p>批量操作期间，当前线程的变更通知会被暂存并去重，待批量操作结束后统一发送。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class BatchNotifier {
+
+  private static final ThreadLocal<Batch> currentBatch = new ThreadLocal<>();
+
+  private BatchNotifier() {
+  }
+
+  /**
+   * 开始批量操作
+   *
+   * <p>支持嵌套调用，仅最外层的批量操作结束时发送通知。</p>
+   */
+  public static void begin() {
+    Batch batch = currentBatch.get();
+
+    if (batch == null) {
+      batch = new Batch();
+      currentBatch.set(batch);
+    }
+    ++batch.depth;
+  }
+
+  /**
+   * 结束批量操作
+   *
+   * @param context 上下文
+   * @param success 批量操作是否成功，失败时丢弃暂存的通知
+   * @param dispatcher 变更通知分发器
+   */
+  public static void end(Context context, boolean success, @Nullable NotificationDispatcher dispatcher) {
+    Batch batch = currentBatch.get();
+
+    if (batch == null) {
+      return;
+    }
+    if (!success) {
+      batch.failed = true;
+    }
+    if (--batch.depth > 0) {
+      return;
+    }
+    currentBatch.remove();
+
+    for (Runnable action : batch.endActions) {
+      action.run();
+    }
+    if (batch.failed || context == null) {
+      return;
+    }
+    for (Uri uri : batch.pendingUris) {
+      dispatch(context, uri, dispatcher);
+    }
+    if (dispatcher != null) {
+      dispatcher.flush(context);
+    }
+  }
+
+  /**
+   * 发送变更通知
+   *
+   * <p>批量操作期间暂存通知，否则交由分发器发送。</p>
+   *
+   * @param context 上下文
+   * @param uri 变更URI
+   * @param dispatcher 变更通知分发器，为空时立即发送
+   */
+  public static void notifyChange(Context context, @NonNull Uri uri, @Nullable NotificationDispatcher dispatcher) {
+    Batch batch = currentBatch.get();
+
+    if (batch != null) {
+      batch.pendingUris.add(uri);
+
+    } else if (context != null) {
+      dispatch(context, uri, dispatcher);
+    }
+  }
+
+  /**
+   * 事务结束时刷新变更通知
+   *
+   * <p>批量操作期间忽略，由批量操作结束时统一刷新。</p>
+   *
+   * @param context 上下文
+   * @param dispatcher 变更通知分发器
+   */
+  public static void flush(Context context, @Nullable NotificationDispatcher dispatcher) {
+    if (dispatcher != null && currentBatch.get() == null) {
+      dispatcher.flush(context);
+    }
+  }
+
+  /**
+   * 批量操作结束后执行
+   *
+   * <p>批量操作期间，待最外层批量操作结束（无论成功与否）后执行，同一动作仅执行一次；否则立即执行。</p>
+   *
+   * @param action 执行动作
+   */
+  public static void runAfterBatch(@NonNull Runnable action) {
+    Batch batch = currentBatch.get();
+
+    if (batch != null) {
+      batch.endActions.add(action);
+    } else {
+      action.run();
+    }
+  }
+
+  private static void dispatch(@NonNull Context context, @NonNull Uri uri, @Nullable NotificationDispatcher dispatcher) {
+    if (dispatcher != null) {
+      dispatcher.notifyChange(context, uri);
+    } else {
+      context.getContentResolver().notifyChange(uri, null);
+    }
+  }
+
+  private static class Batch {
+    private final Set<Uri> pendingUris = new LinkedHashSet<>();
+    private final Set<Runnable> endActions = new LinkedHashSet<>();
+    private int depth;
+    private boolean failed;
+  }
+}
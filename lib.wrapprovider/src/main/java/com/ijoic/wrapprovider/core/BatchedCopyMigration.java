@@ -0,0 +1,77 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+/**
+ * 分批复制-迁移步骤
+ *
+ * <p>按"_id"顺序分批将源数据表的数据复制到目标数据表，每条语句仅复制一批，限制单条语句的执行时间及临时内存。</p>
+ *
+ * <p>迁移步骤在{@link android.database.sqlite.SQLiteOpenHelper}的升级事务中执行，各批随升级事务一同提交，
+ * 中断时整体回滚，下次打开数据库时从头重新执行，不支持断点续传。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class BatchedCopyMigration implements Migration {
+
+  private final String sourceTable;
+  private final String targetTable;
+  private final String columnText;
+  private final int batchSize;
+
+  /**
+   * 构造函数
+   *
+   * @param sourceTable 源数据表
+   * @param targetTable 目标数据表
+   * @param columns 复制列（需包含"_id"）
+   * @param batchSize 每批行数
+   */
+  public BatchedCopyMigration(@NonNull String sourceTable, @NonNull String targetTable, @NonNull String[] columns, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("invalid batch size: " + batchSize);
+    }
+    this.sourceTable = sourceTable;
+    this.targetTable = targetTable;
+    this.columnText = TextUtils.join(",", columns);
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public void migrate(@NonNull SQLiteDatabase db) {
+    long lastId = Long.MIN_VALUE;
+
+    while (true) {
+      Long batchEndId = queryBatchEndId(db, lastId);
+
+      if (batchEndId == null) {
+        break;
+      }
+      db.execSQL(
+        "INSERT INTO " + targetTable + " (" + columnText + ") SELECT " + columnText + " FROM " + sourceTable + " WHERE _id>? AND _id<=?",
+        new Object[] {lastId, batchEndId}
+      );
+      lastId = batchEndId;
+    }
+  }
+
+  private Long queryBatchEndId(@NonNull SQLiteDatabase db, long lastId) {
+    Cursor c = db.rawQuery(
+      "SELECT COUNT(*), MAX(_id) FROM (SELECT _id FROM " + sourceTable + " WHERE _id>? ORDER BY _id LIMIT " + batchSize + ")",
+      new String[] {String.valueOf(lastId)}
+    );
+
+    try {
+      if (c.moveToFirst() && c.getLong(0) > 0) {
+        return c.getLong(1);
+      }
+      return null;
+    } finally {
+      c.close();
+    }
+  }
+}
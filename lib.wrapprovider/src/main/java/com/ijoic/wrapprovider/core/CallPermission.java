@@ -0,0 +1,79 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentProvider;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.PathPermission;
+import android.net.Uri;
+import android.os.Binder;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * 调用方法-权限检查
+ *
+ * <p>{@link ContentProvider#call(String, String, android.os.Bundle)}不检查提供器的读写权限，
+ * 由此在转发前按URI检查调用方权限，规则与查询及写入一致：提供器的读取或写入权限、匹配的路径权限，以及URI授权。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class CallPermission {
+
+  private CallPermission() {
+  }
+
+  /**
+   * 检查调用方权限
+   *
+   * @param provider 内容提供器
+   * @param uri 目标URI
+   * @param write 是否为写入
+   * @throws SecurityException 调用方无权限
+   */
+  public static void enforce(@NonNull ContentProvider provider, @NonNull Uri uri, boolean write) {
+    Context context = provider.getContext();
+
+    if (context == null || Binder.getCallingUid() == Process.myUid()) {
+      return;
+    }
+    String componentPermission = write ? provider.getWritePermission() : provider.getReadPermission();
+
+    if (isGranted(context, componentPermission)) {
+      return;
+    }
+    boolean allowDefault = componentPermission == null;
+    PathPermission[] pathPermissions = provider.getPathPermissions();
+    String path = uri.getPath();
+
+    if (pathPermissions != null && path != null) {
+      for (PathPermission pathPermission : pathPermissions) {
+        String permission = write ? pathPermission.getWritePermission() : pathPermission.getReadPermission();
+
+        if (permission == null || !pathPermission.match(path)) {
+          continue;
+        }
+        if (isGranted(context, permission)) {
+          return;
+        }
+        allowDefault = false;
+      }
+    }
+    if (allowDefault) {
+      return;
+    }
+    int mode = write ? Intent.FLAG_GRANT_WRITE_URI_PERMISSION : Intent.FLAG_GRANT_READ_URI_PERMISSION;
+
+    if (context.checkCallingUriPermission(uri, mode) == PackageManager.PERMISSION_GRANTED) {
+      return;
+    }
+    throw new SecurityException("Permission Denial: " + (write ? "writing " : "reading ") + uri
+      + " from pid=" + Binder.getCallingPid() + ", uid=" + Binder.getCallingUid());
+  }
+
+  private static boolean isGranted(@NonNull Context context, @Nullable String permission) {
+    return permission != null && context.checkCallingOrSelfPermission(permission) == PackageManager.PERMISSION_GRANTED;
+  }
+}
@@ -0,0 +1,240 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+/**
+ * 变更日志
+ *
+ * <p>为{@link com.ijoic.wrapprovider.TableConfig#changeLogEnabled}的数据表维护日志表"&lt;table&gt;_changes"，
+ * 由触发器在数据表插入、更新及删除时于同一事务中追加（序号，行ID，操作），帮助器及外部直接写入均会记录。
+ * 例外：recursive_triggers未开启时，INSERT OR REPLACE因冲突删除的行不触发删除触发器，不会记录删除；
+ * 帮助器的{@link com.ijoic.wrapprovider.TableConfig#CONFLICT_REPLACE}插入或更新已先显式删除已有行，外部直接执行的REPLACE需自行处理。</p>
+ *
+ * <p>增量URI：<code>content://com.example.app/notes/_changes?since=120&amp;limit=500</code>，按序号升序返回序号大于since的变更，
+ * 结果包含{@link #COLUMN_SEQUENCE}、{@link #COLUMN_ROW_ID}、{@link #COLUMN_OP}列，以及左连接得到的数据行当前值（已删除时为空）。
+ * 客户端将插入及更新视为写入当前值，将删除视为移除，并以最后一行的序号作为下次的since。</p>
+ *
+ * <p>压缩时同一行仅保留最新变更，超出上限时删除最早的变更，并以{@link #OP_RESET}记录被删除的最大序号。
+ * 结果中出现{@link #OP_RESET}行，或未指定since时，客户端需全量同步，并以结果中的最大序号作为下次的since。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class ChangeLog {
+
+  /**
+   * 增量路径
+   */
+  public static final String PATH_CHANGES = "_changes";
+
+  /**
+   * 起始序号查询参数（不含）
+   */
+  public static final String QUERY_PARAMETER_SINCE = "since";
+
+  /**
+   * 序号列
+   */
+  public static final String COLUMN_SEQUENCE = "_seq";
+
+  /**
+   * 行ID列
+   */
+  public static final String COLUMN_ROW_ID = "_row_id";
+
+  /**
+   * 操作列
+   */
+  public static final String COLUMN_OP = "_op";
+
+  /**
+   * 操作：需全量同步
+   */
+  public static final int OP_RESET = 0;
+
+  /**
+   * 操作：插入
+   */
+  public static final int OP_INSERT = 1;
+
+  /**
+   * 操作：更新
+   */
+  public static final int OP_UPDATE = 2;
+
+  /**
+   * 操作：删除
+   */
+  public static final int OP_DELETE = 3;
+
+  /**
+   * 变更结果MIME类型
+   */
+  public static final String MIME_TYPE = "vnd.android.cursor.dir/vnd.wrapprovider.changes";
+
+  private static final int DEFAULT_LIMIT = 1000;
+
+  private ChangeLog() {
+  }
+
+  /**
+   * 获取日志表名称
+   *
+   * @param tableName 数据表名称
+   * @return 日志表名称
+   */
+  @NonNull
+  static String getLogTableName(@NonNull String tableName) {
+    return tableName + "_changes";
+  }
+
+  /**
+   * 查询最大序号
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   * @return 最大序号，日志为空时返回0
+   */
+  static long queryMaxSequence(@NonNull SQLiteDatabase db, @NonNull String tableName) {
+    return DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(seq), 0) FROM " + getLogTableName(tableName), null);
+  }
+
+  /**
+   * 创建日志表及触发器
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   */
+  static void install(@NonNull SQLiteDatabase db, @NonNull String tableName) {
+    String logTableName = getLogTableName(tableName);
+    String insertSql = "INSERT INTO " + logTableName + " (row_id, op) VALUES ";
+
+    db.execSQL("CREATE TABLE IF NOT EXISTS " + logTableName + " (seq INTEGER PRIMARY KEY AUTOINCREMENT, row_id INTEGER NOT NULL, op INTEGER NOT NULL)");
+    db.execSQL("CREATE INDEX IF NOT EXISTS " + logTableName + "_row_id ON " + logTableName + " (row_id)");
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + logTableName + "_ai AFTER INSERT ON " + tableName + " BEGIN "
+      + insertSql + "(new._id, " + OP_INSERT + "); END");
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + logTableName + "_au AFTER UPDATE ON " + tableName + " BEGIN "
+      + insertSql + "(new._id, " + OP_UPDATE + "); END");
+    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + logTableName + "_ad AFTER DELETE ON " + tableName + " BEGIN "
+      + insertSql + "(old._id, " + OP_DELETE + "); END");
+  }
+
+  /**
+   * 重置日志
+   *
+   * <p>数据表被删除重建时调用：清空日志表，并以{@link #OP_RESET}记录一条新的变更。
+   * 日志表保留，序号由自增计数继续递增，持有旧序号的客户端将读到重置行并全量同步。
+   * 数据表的触发器随数据表一同删除，由{@link #install(SQLiteDatabase, String)}重新创建。</p>
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   */
+  static void reset(@NonNull SQLiteDatabase db, @NonNull String tableName) {
+    String logTableName = getLogTableName(tableName);
+
+    if (DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM sqlite_master WHERE type='table' AND name=?", new String[] {logTableName}) == 0) {
+      return;
+    }
+    db.execSQL("DELETE FROM " + logTableName);
+    db.execSQL("INSERT INTO " + logTableName + " (row_id, op) VALUES (0, " + OP_RESET + ")");
+  }
+
+  /**
+   * 删除日志表及触发器
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   */
+  static void uninstall(@NonNull SQLiteDatabase db, @NonNull String tableName) {
+    String logTableName = getLogTableName(tableName);
+    db.execSQL("DROP TRIGGER IF EXISTS " + logTableName + "_ai");
+    db.execSQL("DROP TRIGGER IF EXISTS " + logTableName + "_au");
+    db.execSQL("DROP TRIGGER IF EXISTS " + logTableName + "_ad");
+    db.execSQL("DROP TABLE IF EXISTS " + logTableName);
+  }
+
+  /**
+   * 压缩日志
+   *
+   * <p>同一行仅保留最新变更；仍超出上限时删除最早的变更，并以{@link #OP_RESET}记录被删除的最大序号。</p>
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   * @param maxSize 最大变更数
+   */
+  static void compact(@NonNull SQLiteDatabase db, @NonNull String tableName, int maxSize) {
+    String logTableName = getLogTableName(tableName);
+
+    db.beginTransaction();
+    try {
+      db.execSQL("DELETE FROM " + logTableName + " WHERE op<>" + OP_RESET
+        + " AND seq NOT IN (SELECT MAX(seq) FROM " + logTableName + " WHERE op<>" + OP_RESET + " GROUP BY row_id)");
+      long count = DatabaseUtils.queryNumEntries(db, logTableName);
+
+      if (maxSize > 0 && count > maxSize) {
+        long resetSequence = DatabaseUtils.longForQuery(db,
+          "SELECT seq FROM " + logTableName + " ORDER BY seq LIMIT 1 OFFSET " + (count - maxSize), null);
+        db.execSQL("DELETE FROM " + logTableName + " WHERE seq<=" + resetSequence);
+        db.execSQL("INSERT INTO " + logTableName + " (seq, row_id, op) VALUES (" + resetSequence + ", 0, " + OP_RESET + ")");
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+  }
+
+  /**
+   * 查询变更
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   * @param uri 增量URI
+   * @param projection 数据列，为空时返回全部列
+   * @return 变更结果
+   */
+  @NonNull
+  static Cursor query(@NonNull SQLiteDatabase db, @NonNull String tableName, @NonNull Uri uri, @Nullable String[] projection) {
+    String logTableName = getLogTableName(tableName);
+    String sinceText = uri.getQueryParameter(QUERY_PARAMETER_SINCE);
+
+    if (TextUtils.isEmpty(sinceText)) {
+      return db.rawQuery("SELECT IFNULL(MAX(seq), 0) AS " + COLUMN_SEQUENCE + ", 0 AS " + COLUMN_ROW_ID + ", " + OP_RESET + " AS " + COLUMN_OP
+        + " FROM " + logTableName, null);
+    }
+    long since = parseLong(sinceText, 0L);
+    long limit = parseLong(uri.getQueryParameter(KeysetPage.QUERY_PARAMETER_LIMIT), DEFAULT_LIMIT);
+    StringBuilder sql = new StringBuilder(256);
+    sql.append("SELECT c.seq AS ").append(COLUMN_SEQUENCE)
+      .append(",c.row_id AS ").append(COLUMN_ROW_ID)
+      .append(",c.op AS ").append(COLUMN_OP);
+
+    if (projection == null || projection.length == 0) {
+      sql.append(",t.*");
+    } else {
+      for (String column : projection) {
+        sql.append(",t.").append(column);
+      }
+    }
+    sql.append(" FROM ").append(logTableName).append(" AS c LEFT JOIN ").append(tableName)
+      .append(" AS t ON c.op<>").append(OP_DELETE).append(" AND t._id=c.row_id")
+      .append(" WHERE c.seq>? ORDER BY c.seq LIMIT ").append(limit);
+    return db.rawQuery(sql.toString(), new String[] {String.valueOf(since)});
+  }
+
+  private static long parseLong(@Nullable String text, long defaultValue) {
+    if (TextUtils.isEmpty(text)) {
+      return defaultValue;
+    }
+    try {
+      return Math.max(Long.parseLong(text), 0L);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid number: " + text);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.text.TextUtils;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并-变更通知分发器
+ *
+ * <p>按数据表收集变更URI，在防抖间隔结束或事务结束时统一发送。
+ * 同一数据表的子项URI数超过阈值时，合并为一次数据表URI通知。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class CoalescingNotificationDispatcher implements NotificationDispatcher {
+
+  private final long debounceMillis;
+  private final int collapseThreshold;
+
+  private final Object lock = new Object();
+  private Map<Uri, Set<Uri>> pendingMap = new LinkedHashMap<>();
+  private Context context;
+  private boolean flushScheduled;
+
+  private ScheduledExecutorService executor;
+
+  private long dispatchedCount;
+  private long suppressedCount;
+
+  /**
+   * 构造函数
+   *
+   * @param debounceMillis 防抖间隔（毫秒），需大于0
+   * @param collapseThreshold 子项URI合并阈值
+   * @throws IllegalArgumentException 防抖间隔不大于0
+   */
+  public CoalescingNotificationDispatcher(long debounceMillis, int collapseThreshold) {
+    if (debounceMillis <= 0) {
+      // single writes outside a transaction are only flushed by the debounce timer.
+      throw new IllegalArgumentException("invalid debounce millis: " + debounceMillis);
+    }
+    this.debounceMillis = debounceMillis;
+    this.collapseThreshold = collapseThreshold;
+  }
+
+  @Override
+  public void notifyChange(Context context, @NonNull Uri uri) {
+    if (context == null) {
+      return;
+    }
+    boolean scheduleFlush = false;
+
+    synchronized (lock) {
+      Uri tableUri = getTableUri(uri);
+      Set<Uri> uriSet = pendingMap.get(tableUri);
+
+      if (uriSet == null) {
+        uriSet = new LinkedHashSet<>();
+        pendingMap.put(tableUri, uriSet);
+      }
+      if (!uriSet.add(uri)) {
+        ++suppressedCount;
+      }
+      this.context = context;
+
+      if (!flushScheduled) {
+        flushScheduled = true;
+        scheduleFlush = true;
+      }
+    }
+
+    if (scheduleFlush) {
+      getExecutor().schedule(new Runnable() {
+        @Override
+        public void run() {
+          flush(null);
+        }
+      }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public void flush(Context context) {
+    Map<Uri, Set<Uri>> pendingMap;
+
+    synchronized (lock) {
+      if (context == null) {
+        context = this.context;
+      }
+      pendingMap = this.pendingMap;
+      this.pendingMap = new LinkedHashMap<>();
+      this.context = null;
+      flushScheduled = false;
+    }
+
+    if (context == null || pendingMap.isEmpty()) {
+      return;
+    }
+    ContentResolver resolver = context.getContentResolver();
+    long dispatched = 0;
+    long suppressed = 0;
+
+    for (Map.Entry<Uri, Set<Uri>> entry : pendingMap.entrySet()) {
+      Uri tableUri = entry.getKey();
+      Set<Uri> uriSet = entry.getValue();
+
+      if (uriSet.size() > collapseThreshold || uriSet.contains(tableUri)) {
+        resolver.notifyChange(tableUri, null);
+        ++dispatched;
+        suppressed += uriSet.size() - 1;
+
+      } else {
+        for (Uri uri : uriSet) {
+          resolver.notifyChange(uri, null);
+          ++dispatched;
+        }
+      }
+    }
+
+    synchronized (lock) {
+      dispatchedCount += dispatched;
+      suppressedCount += suppressed;
+    }
+  }
+
+  @Override
+  public long getDispatchedCount() {
+    synchronized (lock) {
+      return dispatchedCount;
+    }
+  }
+
+  @Override
+  public long getSuppressedCount() {
+    synchronized (lock) {
+      return suppressedCount;
+    }
+  }
+
+  private ScheduledExecutorService getExecutor() {
+    synchronized (lock) {
+      if (executor == null) {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+          @Override
+          public Thread newThread(@NonNull Runnable r) {
+            Thread thread = new Thread(r, "provider-notify");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+      }
+      return executor;
+    }
+  }
+
+  private static Uri getTableUri(@NonNull Uri uri) {
+    List<String> segments = uri.getPathSegments();
+    int size = segments.size();
+
+    if (size > 1 && TextUtils.isDigitsOnly(segments.get(size - 1))) {
+      String path = uri.getPath();
+      return uri.buildUpon().path(path.substring(0, path.lastIndexOf('/'))).build();
+    }
+    return uri;
+  }
+}
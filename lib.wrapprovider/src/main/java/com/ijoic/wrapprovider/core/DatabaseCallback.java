@@ -0,0 +1,47 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * 数据库-生命周期回调
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public interface DatabaseCallback {
+
+  /**
+   * 创建数据库回调
+   *
+   * @param db 数据库
+   */
+  void onCreateDatabase(@NonNull SQLiteDatabase db);
+
+  /**
+   * 升级数据库回调
+   *
+   * @param db 数据库
+   * @param oldVersion 旧数据库版本号
+   * @param newVersion 新数据库版本号
+   */
+  void onUpgradeDatabase(@NonNull SQLiteDatabase db, int oldVersion, int newVersion);
+
+  /**
+   * 数据库结构变更回调
+   *
+   * <p>创建或升级数据库后，在同一事务中调用。</p>
+   *
+   * @param db 数据库
+   */
+  void onSchemaChanged(@NonNull SQLiteDatabase db);
+
+  /**
+   * 预热数据库回调
+   *
+   * <p>开启数据库预热时，在后台线程打开数据库后调用。</p>
+   *
+   * @param db 数据库
+   */
+  void onPrewarmDatabase(@NonNull SQLiteDatabase db);
+}
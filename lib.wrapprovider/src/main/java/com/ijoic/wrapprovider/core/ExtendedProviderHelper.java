@@ -0,0 +1,110 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.ijoic.wrapprovider.DatabaseConfig;
+
+import java.io.FileNotFoundException;
+
+/**
+ * 数据库提供器-扩展帮助器
+ *
+ * <p>在{@link ProviderHelper}基础上增加批量插入、文件导出、方法调用、变更通知分发及分库等能力，{@link BaseProviderHelper}已实现本接口。
+ * 内容提供器通过{@link ProviderHelperAdapter#wrap(ProviderHelper)}调用帮助器，仅实现{@link ProviderHelper}的帮助器使用默认行为。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public interface ExtendedProviderHelper extends ProviderHelper, DatabaseCallback {
+
+  /**
+   * 设置变更通知分发器
+   *
+   * @param dispatcher 变更通知分发器，为空时立即发送通知
+   */
+  void setNotificationDispatcher(@Nullable NotificationDispatcher dispatcher);
+
+  /**
+   * 设置慢操作日志
+   *
+   * @param slowOperationLog 慢操作日志，为空时不记录
+   */
+  void setSlowOperationLog(@Nullable SlowOperationLog slowOperationLog);
+
+  /**
+   * 获取分库配置
+   *
+   * <p>返回非空时，{@link com.ijoic.wrapprovider.MultiTableContentProvider}将该帮助器的数据表放在独立的数据库文件中。</p>
+   *
+   * @return 分库配置，使用共享数据库时返回空
+   */
+  @Nullable
+  DatabaseConfig getShardConfig();
+
+  /**
+   * 获取MIME类型
+   *
+   * @param matchCode 匹配码
+   * @param uri URI，用于区分查询参数不同的同一路径（如导出格式）
+   * @return MIME类型
+   */
+  @Nullable
+  String getMimeType(int matchCode, @NonNull Uri uri);
+
+  /**
+   * 批量插入数据
+   *
+   * <p>全部数据在同一事务中插入，并仅在提交后发送一次变更通知。</p>
+   *
+   * @param matchCode 匹配类型码
+   * @param context 上下文
+   * @param uri 查询URI
+   * @param values 插入值列表
+   * @return 插入成功的数据条数
+   */
+  int bulkInsert(int matchCode, Context context, @NonNull Uri uri, @NonNull ContentValues[] values);
+
+  /**
+   * 打开文件
+   *
+   * @param matchCode 匹配类型码
+   * @param context 上下文
+   * @param uri 文件URI
+   * @param mode 打开模式
+   * @return 文件描述符
+   * @throws FileNotFoundException URI不支持打开文件
+   */
+  ParcelFileDescriptor openFile(int matchCode, Context context, @NonNull Uri uri, @NonNull String mode) throws FileNotFoundException;
+
+  /**
+   * 调用帮助器方法
+   *
+   * <p>由{@link android.content.ContentProvider#call(String, String, Bundle)}转发，参数<code>arg</code>为目标URI。</p>
+   *
+   * @param matchCode 匹配类型码
+   * @param context 上下文
+   * @param uri 目标URI
+   * @param method 方法名
+   * @param extras 附加参数
+   * @return 调用结果，不支持该方法时返回空
+   */
+  @Nullable
+  Bundle call(int matchCode, Context context, @NonNull Uri uri, @NonNull String method, @Nullable Bundle extras);
+
+  /**
+   * 判断帮助器方法是否写入数据
+   *
+   * <p>提供器在转发{@link #call(int, Context, Uri, String, Bundle)}前，据此检查调用方的写入权限。</p>
+   *
+   * @param matchCode 匹配类型码
+   * @param method 方法名
+   * @return 是否写入数据
+   */
+  boolean isWriteMethod(int matchCode, @NonNull String method);
+}
@@ -0,0 +1,165 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.UriMatcher;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 快速-URI匹配器
+ *
+ * <p>固定路径（如"notes"）及以数字结尾的路径（如"notes/#"）额外记录在哈希表中，
+ * 匹配时直接按"授权+路径"查表，无需逐段遍历匹配树；其他模式仍交由{@link UriMatcher}匹配。</p>
+ *
+ * <p>注册了含通配符"*"或中间段为"#"的模式后，哈希表停用，全部交由{@link UriMatcher}匹配。</p>
+ *
+ * <p>查表使用编码路径；含转义字符、空段或以"/"结尾的路径与{@link UriMatcher}按解码后的非空段匹配的结果可能不同，
+ * 同样交由{@link UriMatcher}匹配。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class FastUriMatcher extends UriMatcher {
+
+  private static final String PATTERN_NUMBER = "#";
+  private static final String PATTERN_TEXT = "*";
+
+  private final Map<String, Map<String, Integer>> exactMap = new HashMap<>();
+  private final Map<String, Map<String, Integer>> itemMap = new HashMap<>();
+  private boolean tableEnabled = true;
+
+  /**
+   * 构造函数
+   *
+   * @param code 根节点匹配码
+   */
+  public FastUriMatcher(int code) {
+    super(code);
+  }
+
+  @Override
+  public void addURI(String authority, String path, int code) {
+    super.addURI(authority, path, code);
+
+    if (tableEnabled) {
+      addTableEntry(authority, path, code);
+    }
+  }
+
+  private void addTableEntry(String authority, String path, int code) {
+    if (authority == null || PATTERN_NUMBER.equals(authority) || PATTERN_TEXT.equals(authority) || path == null) {
+      tableEnabled = false;
+      return;
+    }
+    if (path.length() > 1 && path.charAt(0) == '/') {
+      path = path.substring(1);
+    }
+    String[] tokens = path.split("/");
+    int lastIndex = tokens.length - 1;
+
+    for (int i = 0; i <= lastIndex; ++i) {
+      String token = tokens[i];
+
+      if (token.isEmpty() || PATTERN_TEXT.equals(token) || (i < lastIndex && PATTERN_NUMBER.equals(token))) {
+        tableEnabled = false;
+        return;
+      }
+    }
+
+    if (PATTERN_NUMBER.equals(tokens[lastIndex])) {
+      if (lastIndex == 0) {
+        tableEnabled = false;
+        return;
+      }
+      getPathMap(itemMap, authority).put("/" + path.substring(0, path.lastIndexOf('/')), code);
+      return;
+    }
+    String fullPath = "/" + path;
+    int slash = fullPath.lastIndexOf('/');
+    Map<String, Integer> authorityItemMap = itemMap.get(authority);
+
+    // an earlier "#" sibling takes precedence in UriMatcher, leave the lookup to it.
+    if (slash > 0 && isDigits(fullPath, slash + 1) && authorityItemMap != null && authorityItemMap.containsKey(fullPath.substring(0, slash))) {
+      return;
+    }
+    getPathMap(exactMap, authority).put(fullPath, code);
+  }
+
+  @Override
+  public int match(Uri uri) {
+    if (tableEnabled) {
+      String authority = uri.getAuthority();
+      String path = uri.getEncodedPath();
+
+      if (authority != null && path != null && isPlainPath(path)) {
+        Map<String, Integer> pathMap = exactMap.get(authority);
+        Integer code = pathMap != null ? pathMap.get(path) : null;
+
+        if (code != null) {
+          return code;
+        }
+        int slash = path.lastIndexOf('/');
+        pathMap = itemMap.get(authority);
+
+        if (pathMap != null && slash > 0 && isDigits(path, slash + 1)) {
+          code = pathMap.get(path.substring(0, slash));
+
+          if (code != null) {
+            return code;
+          }
+        }
+      }
+    }
+    return super.match(uri);
+  }
+
+  @NonNull
+  private static Map<String, Integer> getPathMap(@NonNull Map<String, Map<String, Integer>> map, @NonNull String authority) {
+    Map<String, Integer> pathMap = map.get(authority);
+
+    if (pathMap == null) {
+      pathMap = new HashMap<>();
+      map.put(authority, pathMap);
+    }
+    return pathMap;
+  }
+
+  /**
+   * 判断路径能否直接查表
+   *
+   * <p>以"/"开始，不含转义字符及空段，且不以"/"结尾。</p>
+   */
+  private static boolean isPlainPath(@NonNull String path) {
+    int length = path.length();
+
+    if (length < 2 || path.charAt(0) != '/' || path.charAt(length - 1) == '/') {
+      return false;
+    }
+    for (int i = 1; i < length; ++i) {
+      char c = path.charAt(i);
+
+      if (c == '%' || (c == '/' && path.charAt(i - 1) == '/')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigits(@NonNull String text, int start) {
+    int length = text.length();
+
+    if (start >= length) {
+      return false;
+    }
+    for (int i = start; i < length; ++i) {
+      char c = text.charAt(i);
+
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
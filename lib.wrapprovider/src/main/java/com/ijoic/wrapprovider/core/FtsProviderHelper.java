@@ -0,0 +1,272 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.Context;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 全文检索数据库提供器-帮助器
+ *
+ * <p>为{@link TableConfig#ftsColumns}维护FTS4影子表"&lt;table&gt;_fts"，以"docid"对应数据表"_id"，
+ * 由触发器在数据表写入时同步，帮助器及外部直接写入均可保持一致。
+ * 例外：recursive_triggers未开启时，INSERT OR REPLACE因冲突删除的行不触发删除触发器；
+ * 帮助器的{@link TableConfig#CONFLICT_REPLACE}插入或更新已先显式删除已有行，外部直接执行的REPLACE会残留影子表旧行。</p>
+ *
+ * <p>检索URI：<code>content://com.example.app/notes/_search?q=term&amp;limit=20&amp;offset=0</code>，
+ * 结果按匹配次数降序排列，附加{@link #COLUMN_RANK}及{@link #COLUMN_SNIPPET}列，支持选择条件。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public abstract class FtsProviderHelper extends BaseProviderHelper {
+
+  /**
+   * 检索路径
+   */
+  public static final String PATH_SEARCH = "_search";
+
+  /**
+   * 检索词查询参数（FTS MATCH语法）
+   */
+  public static final String QUERY_PARAMETER_QUERY = "q";
+
+  /**
+   * 检索结果偏移查询参数
+   */
+  public static final String QUERY_PARAMETER_OFFSET = "offset";
+
+  /**
+   * 排序分值列（匹配次数）
+   */
+  public static final String COLUMN_RANK = "_rank";
+
+  /**
+   * 摘要列
+   */
+  public static final String COLUMN_SNIPPET = "_snippet";
+
+  private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+  private static final String SNIPPET_START = "<b>";
+  private static final String SNIPPET_END = "</b>";
+  private static final String SNIPPET_ELLIPSIS = "...";
+  private static final int SNIPPET_TOKENS = 15;
+
+  private final int matchCodeSearch;
+
+  /**
+   * 构造函数
+   */
+  public FtsProviderHelper() {
+    matchCodeSearch = genMatchCode();
+  }
+
+  /**
+   * 获取影子表名称
+   *
+   * @return 影子表名称
+   */
+  @NonNull
+  protected String getFtsTableName() {
+    return getTableConfig().tableName + "_fts";
+  }
+
+  @Override
+  public void initUriMatcher(@NonNull UriMatcher uriMatcher, @NonNull String authority, int matchMask) {
+    super.initUriMatcher(uriMatcher, authority, matchMask);
+    uriMatcher.addURI(authority, getTableConfig().itemSet + "/" + PATH_SEARCH, matchCodeSearch | matchMask);
+  }
+
+  @Override
+  public String getMimeType(int matchCode) {
+    if (matchCode == matchCodeSearch) {
+      return getTableConfig().contentType;
+    }
+    return super.getMimeType(matchCode);
+  }
+
+  @Override
+  public void onSchemaChanged(@NonNull SQLiteDatabase db) {
+    super.onSchemaChanged(db);
+    syncFtsTable(db);
+  }
+
+  @Override
+  protected void onDestructiveUpgrade(@NonNull SQLiteDatabase db) {
+    db.execSQL("DROP TABLE IF EXISTS " + getFtsTableName());
+    super.onDestructiveUpgrade(db);
+  }
+
+  /**
+   * 同步影子表
+   *
+   * <p>影子表定义变更或触发器缺失时，重建影子表、触发器，并从数据表重新填充。</p>
+   *
+   * @param db 数据库
+   */
+  private void syncFtsTable(@NonNull SQLiteDatabase db) {
+    String[] ftsColumns = getFtsColumns();
+    String tableName = getTableConfig().tableName;
+    String ftsTableName = getFtsTableName();
+    String columnText = TextUtils.join(",", ftsColumns);
+    String createSql = "CREATE VIRTUAL TABLE " + ftsTableName + " USING fts4(" + columnText + ")";
+
+    if (createSql.equals(querySchemaSql(db, "table", ftsTableName))
+      && querySchemaSql(db, "trigger", ftsTableName + "_ai") != null
+      && querySchemaSql(db, "trigger", ftsTableName + "_au") != null
+      && querySchemaSql(db, "trigger", ftsTableName + "_ad") != null) {
+      return;
+    }
+    db.execSQL("DROP TRIGGER IF EXISTS " + ftsTableName + "_ai");
+    db.execSQL("DROP TRIGGER IF EXISTS " + ftsTableName + "_au");
+    db.execSQL("DROP TRIGGER IF EXISTS " + ftsTableName + "_ad");
+    db.execSQL("DROP TABLE IF EXISTS " + ftsTableName);
+    db.execSQL(createSql);
+
+    StringBuilder newValues = new StringBuilder(64);
+    StringBuilder setValues = new StringBuilder(64);
+
+    for (int i = 0; i < ftsColumns.length; ++i) {
+      newValues.append(",new.").append(ftsColumns[i]);
+      setValues.append(i > 0 ? "," : "").append(ftsColumns[i]).append("=new.").append(ftsColumns[i]);
+    }
+    db.execSQL("CREATE TRIGGER " + ftsTableName + "_ai AFTER INSERT ON " + tableName + " BEGIN "
+      + "INSERT INTO " + ftsTableName + " (docid," + columnText + ") VALUES (new._id" + newValues + "); END");
+    db.execSQL("CREATE TRIGGER " + ftsTableName + "_au AFTER UPDATE OF " + columnText + " ON " + tableName + " BEGIN "
+      + "UPDATE " + ftsTableName + " SET " + setValues + " WHERE docid=old._id; END");
+    db.execSQL("CREATE TRIGGER " + ftsTableName + "_ad AFTER DELETE ON " + tableName + " BEGIN "
+      + "DELETE FROM " + ftsTableName + " WHERE docid=old._id; END");
+    db.execSQL("INSERT INTO " + ftsTableName + " (docid," + columnText + ") SELECT _id," + columnText + " FROM " + tableName);
+  }
+
+  @Nullable
+  private static String querySchemaSql(@NonNull SQLiteDatabase db, @NonNull String type, @NonNull String name) {
+    Cursor c = db.rawQuery("SELECT sql FROM sqlite_master WHERE type=? AND name=?", new String[] {type, name});
+
+    try {
+      return c.moveToFirst() ? c.getString(0) : null;
+    } finally {
+      c.close();
+    }
+  }
+
+  @NonNull
+  private String[] getFtsColumns() {
+    String[] ftsColumns = getTableConfig().ftsColumns;
+
+    if (ftsColumns == null || ftsColumns.length == 0) {
+      throw new IllegalStateException("fts columns not configured: " + getTableConfig().tableName);
+    }
+    return ftsColumns;
+  }
+
+  @Override
+  public Cursor query(int matchCode, Context context, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+    if (matchCode != matchCodeSearch) {
+      return super.query(matchCode, context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+    SQLiteOpenHelper databaseHelper = getDatabaseHelper();
+
+    if (databaseHelper == null) {
+      return null;
+    }
+    String query = uri.getQueryParameter(QUERY_PARAMETER_QUERY);
+
+    if (TextUtils.isEmpty(query)) {
+      throw new IllegalArgumentException("search query not found: " + uri);
+    }
+    checkProjection(uri, projection);
+    int limit = parseNonNegative(uri.getQueryParameter(KeysetPage.QUERY_PARAMETER_LIMIT), DEFAULT_SEARCH_LIMIT);
+    int offset = parseNonNegative(uri.getQueryParameter(QUERY_PARAMETER_OFFSET), 0);
+
+    List<String> args = new ArrayList<>();
+    args.add(query);
+
+    if (selectionArgs != null) {
+      for (String arg : selectionArgs) {
+        args.add(arg);
+      }
+    }
+    String sql = buildSearchSql(projection, selection, limit, offset);
+    Cursor c = databaseHelper.getReadableDatabase().rawQuery(sql, args.toArray(new String[args.size()]));
+
+    if (c != null && context != null) {
+      c.setNotificationUri(context.getContentResolver(), uri);
+    }
+    return c;
+  }
+
+  /**
+   * 构建检索语句
+   *
+   * <p>在子查询中完成匹配及评分，再与数据表连接，避免选择条件中的列名与影子表列名冲突。
+   * 匹配次数由offsets()结果中的四元组个数计算。</p>
+   */
+  @NonNull
+  private String buildSearchSql(@Nullable String[] projection, @Nullable String selection, int limit, int offset) {
+    TableConfig tableConfig = getTableConfig();
+    String ftsTableName = getFtsTableName();
+    String offsets = "offsets(" + ftsTableName + ")";
+    StringBuilder sql = new StringBuilder(256);
+    sql.append("SELECT ");
+
+    if (projection == null || projection.length == 0) {
+      sql.append(tableConfig.tableName).append(".*");
+    } else {
+      for (int i = 0; i < projection.length; ++i) {
+        sql.append(i > 0 ? "," : "").append(projection[i]);
+      }
+    }
+    sql.append(',').append(COLUMN_SNIPPET).append(',').append(COLUMN_RANK);
+    sql.append(" FROM ").append(tableConfig.tableName).append(" JOIN (SELECT docid,");
+    sql.append("snippet(").append(ftsTableName).append(',')
+      .append(DatabaseUtils.sqlEscapeString(SNIPPET_START)).append(',')
+      .append(DatabaseUtils.sqlEscapeString(SNIPPET_END)).append(',')
+      .append(DatabaseUtils.sqlEscapeString(SNIPPET_ELLIPSIS)).append(",-1,").append(SNIPPET_TOKENS)
+      .append(") AS ").append(COLUMN_SNIPPET).append(',');
+    sql.append("(length(").append(offsets).append(")-length(replace(").append(offsets).append(",' ',''))+1)/4 AS ").append(COLUMN_RANK);
+    sql.append(" FROM ").append(ftsTableName).append(" WHERE ").append(ftsTableName).append(" MATCH ?) AS _match");
+    sql.append(" ON ").append(tableConfig.tableName).append("._id=_match.docid");
+
+    if (!TextUtils.isEmpty(selection)) {
+      sql.append(" WHERE (").append(selection).append(')');
+    }
+    sql.append(" ORDER BY ").append(COLUMN_RANK).append(" DESC,").append(tableConfig.tableName).append("._id");
+    sql.append(" LIMIT ").append(limit).append(" OFFSET ").append(offset);
+    return sql.toString();
+  }
+
+  /**
+   * 校验检索列
+   *
+   * <p>检索列直接拼接至检索语句，须为列名，且已配置{@link TableConfig#columns}时须为其中的列，避免借助子查询读取其他数据表。</p>
+   */
+  private void checkProjection(@NonNull Uri uri, @Nullable String[] projection) {
+    if (!isPlainProjection(projection)) {
+      throw new IllegalArgumentException("invalid column in projection: " + uri);
+    }
+  }
+
+  private static int parseNonNegative(@Nullable String text, int defaultValue) {
+    if (TextUtils.isEmpty(text)) {
+      return defaultValue;
+    }
+    try {
+      return Math.max(Integer.parseInt(text), 0);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid number: " + text);
+    }
+  }
+}
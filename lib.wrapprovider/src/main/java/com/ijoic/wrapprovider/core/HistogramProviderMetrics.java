@@ -0,0 +1,164 @@
+package com.ijoic.wrapprovider.core;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 直方图-性能指标
+ *
+ * <p>按操作类型分别以匹配码（"query#65536"）和数据表（"query@notes"）聚合，
+ * 记录次数、失败数、行数及耗时直方图。直方图按2的幂划分微秒区间，第i个区间上限为2^i微秒。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class HistogramProviderMetrics implements ProviderMetrics {
+
+  /**
+   * 直方图区间数
+   */
+  public static final int BUCKET_COUNT = 24;
+
+  private static final String[] OPERATION_NAMES = {"query", "insert", "bulkInsert", "update", "delete", "getType"};
+
+  private final ConcurrentMap<String, Stats> statsMap = new ConcurrentHashMap<>();
+
+  @Override
+  public void record(int operation, int matchCode, @NonNull Uri uri, long durationNanos, int rows, boolean success) {
+    String operationName = OPERATION_NAMES[operation];
+    long durationMicros = durationNanos / 1000L;
+
+    getStats(operationName + "#" + matchCode).record(durationMicros, rows, success);
+
+    List<String> segments = uri.getPathSegments();
+
+    if (!segments.isEmpty()) {
+      getStats(operationName + "@" + segments.get(0)).record(durationMicros, rows, success);
+    }
+  }
+
+  @NonNull
+  private Stats getStats(@NonNull String key) {
+    Stats stats = statsMap.get(key);
+
+    if (stats == null) {
+      Stats newStats = new Stats();
+      stats = statsMap.putIfAbsent(key, newStats);
+
+      if (stats == null) {
+        stats = newStats;
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * 清空全部指标
+   */
+  public void reset() {
+    statsMap.clear();
+  }
+
+  @NonNull
+  @Override
+  public Bundle dump() {
+    Bundle result = new Bundle();
+
+    for (Map.Entry<String, Stats> entry : statsMap.entrySet()) {
+      result.putBundle(entry.getKey(), entry.getValue().toBundle());
+    }
+    return result;
+  }
+
+  @Override
+  public void dump(@NonNull PrintWriter writer) {
+    Map<String, Stats> sortedMap = new TreeMap<>(statsMap);
+
+    writer.println("provider metrics (micros):");
+
+    for (Map.Entry<String, Stats> entry : sortedMap.entrySet()) {
+      Bundle stats = entry.getValue().toBundle();
+      writer.print("  ");
+      writer.print(entry.getKey());
+      writer.print(": count=" + stats.getLong("count"));
+      writer.print(" errors=" + stats.getLong("errors"));
+      writer.print(" rows=" + stats.getLong("rows"));
+      writer.print(" total=" + stats.getLong("totalMicros"));
+      writer.print(" p50=" + stats.getLong("p50Micros"));
+      writer.print(" p95=" + stats.getLong("p95Micros"));
+      writer.print(" p99=" + stats.getLong("p99Micros"));
+      writer.println(" max=" + stats.getLong("maxMicros"));
+    }
+  }
+
+  private static int getBucketIndex(long durationMicros) {
+    int index = 64 - Long.numberOfLeadingZeros(durationMicros);
+    return Math.min(index, BUCKET_COUNT - 1);
+  }
+
+  private static class Stats {
+    private long count;
+    private long errors;
+    private long rows;
+    private long totalMicros;
+    private long maxMicros;
+    private final long[] buckets = new long[BUCKET_COUNT];
+
+    private synchronized void record(long durationMicros, int rows, boolean success) {
+      ++count;
+
+      if (!success) {
+        ++errors;
+      }
+      if (rows > 0) {
+        this.rows += rows;
+      }
+      totalMicros += durationMicros;
+      maxMicros = Math.max(maxMicros, durationMicros);
+      ++buckets[getBucketIndex(durationMicros)];
+    }
+
+    @NonNull
+    private synchronized Bundle toBundle() {
+      Bundle bundle = new Bundle();
+      bundle.putLong("count", count);
+      bundle.putLong("errors", errors);
+      bundle.putLong("rows", rows);
+      bundle.putLong("totalMicros", totalMicros);
+      bundle.putLong("maxMicros", maxMicros);
+      bundle.putLong("p50Micros", getPercentile(0.50));
+      bundle.putLong("p95Micros", getPercentile(0.95));
+      bundle.putLong("p99Micros", getPercentile(0.99));
+      bundle.putLongArray("buckets", buckets.clone());
+      return bundle;
+    }
+
+    /**
+     * 按直方图估算百分位耗时，返回所在区间的上限（不超过最大耗时）
+     */
+    private long getPercentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long threshold = (long) Math.ceil(count * percentile);
+      long accumulated = 0;
+
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        accumulated += buckets[i];
+
+        if (accumulated >= threshold) {
+          return Math.min(1L << i, maxMicros);
+        }
+      }
+      return maxMicros;
+    }
+  }
+}
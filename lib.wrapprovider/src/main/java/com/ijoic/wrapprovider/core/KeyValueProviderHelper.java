@@ -0,0 +1,465 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 键值数据库提供器-帮助器
+ *
+ * <p>数据表包含"_id"、{@link #COLUMN_NAME}（唯一）及{@link #COLUMN_VALUE}列，通过
+ * {@link android.content.ContentProvider#call(String, String, Bundle)}以Bundle读写，参数为数据集URI，
+ * 无需经过查询构建、Cursor及CursorWindow。</p>
+ *
+ * <p>首次访问时将全部键值载入提供器进程内存，之后读取直接命中内存；写入先更新内存并发送变更通知，
+ * 再由后台线程按{@link TableConfig#writeBehindBatchSize}及{@link TableConfig#writeBehindFlushIntervalMillis}分批写入数据库，
+ * 同一批次中相同键仅写入最后的值。进程在写入前被终止时，最近的写入可能丢失。适用于设置项等小规模数据。</p>
+ *
+ * <p>数据集URI的查询、插入、更新及删除仍然可用，执行前等待已排队的写入完成，写入后重新载入内存数据。</p>
+ *
+ * <p>读取方法需要数据集URI的读取权限，写入方法需要写入权限，由提供器在转发前检查。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public abstract class KeyValueProviderHelper extends BaseProviderHelper {
+
+  /**
+   * 键列
+   */
+  public static final String COLUMN_NAME = "name";
+
+  /**
+   * 值列
+   */
+  public static final String COLUMN_VALUE = "value";
+
+  /**
+   * 读取单个值的方法
+   *
+   * <p>附加参数{@link #EXTRA_KEY}为键；存在时返回{@link #EXTRA_VALUE}。</p>
+   */
+  public static final String METHOD_GET = "kv_get";
+
+  /**
+   * 写入单个值的方法
+   *
+   * <p>附加参数{@link #EXTRA_KEY}为键，{@link #EXTRA_VALUE}为值，值为空时删除该键；
+   * 返回{@link BaseProviderHelper#EXTRA_COUNT}（值发生变化的键个数）。</p>
+   */
+  public static final String METHOD_PUT = "kv_put";
+
+  /**
+   * 读取多个值的方法
+   *
+   * <p>附加参数{@link #EXTRA_KEYS}为键列表；返回以键为键的全部已存在值。</p>
+   */
+  public static final String METHOD_GET_MANY = "kv_get_many";
+
+  /**
+   * 写入多个值的方法
+   *
+   * <p>附加参数{@link #EXTRA_ENTRIES}以键为键，值为空时删除该键；
+   * 返回{@link BaseProviderHelper#EXTRA_COUNT}（值发生变化的键个数）。</p>
+   */
+  public static final String METHOD_PUT_MANY = "kv_put_many";
+
+  /**
+   * 键（String）
+   */
+  public static final String EXTRA_KEY = "key";
+
+  /**
+   * 值（String）
+   */
+  public static final String EXTRA_VALUE = "value";
+
+  /**
+   * 键列表（String[]）
+   */
+  public static final String EXTRA_KEYS = "keys";
+
+  /**
+   * 键值（Bundle，值为String）
+   */
+  public static final String EXTRA_ENTRIES = "entries";
+
+  private final Object cacheLock = new Object();
+  private final Map<String, String> cache = new HashMap<>();
+  private boolean cacheLoaded;
+
+  private final WriteBehindQueue writeQueue;
+
+  /**
+   * 构造函数
+   */
+  public KeyValueProviderHelper() {
+    TableConfig tableConfig = getTableConfig();
+    writeQueue = new WriteBehindQueue(
+      tableConfig.tableName,
+      tableConfig.writeBehindCapacity,
+      tableConfig.writeBehindBatchSize,
+      tableConfig.writeBehindFlushIntervalMillis,
+      TableConfig.WRITE_BEHIND_OVERFLOW_BLOCK,
+      writer
+    );
+  }
+
+  /**
+   * 初始化数据表配置
+   *
+   * <p>设置键值表的列、默认空列及唯一键。子类需先调用本方法，再设置数据表名称、URI及MIME类型。</p>
+   *
+   * @param tableConfig 数据表配置
+   */
+  @Override
+  protected void onInitTableConfig(TableConfig tableConfig) {
+    tableConfig.columns = new String[] {"_id", COLUMN_NAME, COLUMN_VALUE};
+    tableConfig.hackColumn = COLUMN_VALUE;
+    tableConfig.conflictColumns = new String[] {COLUMN_NAME};
+  }
+
+  @Override
+  public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+    db.execSQL("CREATE TABLE " + getTableConfig().tableName + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+      + COLUMN_NAME + " TEXT NOT NULL UNIQUE, " + COLUMN_VALUE + " TEXT)");
+  }
+
+  /**
+   * 获取键值写入队列
+   *
+   * <p>通过{@link WriteBehindQueue#flush()}等待已排队的写入完成，不可在持有数据库事务的线程中调用。</p>
+   *
+   * @return 键值写入队列
+   */
+  @NonNull
+  public WriteBehindQueue getKeyValueQueue() {
+    return writeQueue;
+  }
+
+  @Nullable
+  @Override
+  public Bundle call(int matchCode, Context context, @NonNull Uri uri, @NonNull String method, @Nullable Bundle extras) {
+    if (matchCode != getItemSetMatchCode()) {
+      flushPendingWrites();
+      return super.call(matchCode, context, uri, method, extras);
+    }
+    if (METHOD_GET.equals(method)) {
+      String value = get(requireKey(extras, method));
+      Bundle result = new Bundle();
+
+      if (value != null) {
+        result.putString(EXTRA_VALUE, value);
+      }
+      return result;
+    }
+    if (METHOD_GET_MANY.equals(method)) {
+      String[] keys = extras != null ? extras.getStringArray(EXTRA_KEYS) : null;
+
+      if (keys == null) {
+        throw new IllegalArgumentException("keys not found: " + method);
+      }
+      return getMany(keys);
+    }
+    if (METHOD_PUT.equals(method)) {
+      Bundle entries = new Bundle();
+      entries.putString(requireKey(extras, method), extras.getString(EXTRA_VALUE));
+      return toCountResult(putMany(context, entries));
+    }
+    if (METHOD_PUT_MANY.equals(method)) {
+      Bundle entries = extras != null ? extras.getBundle(EXTRA_ENTRIES) : null;
+
+      if (entries == null) {
+        throw new IllegalArgumentException("entries not found: " + method);
+      }
+      return toCountResult(putMany(context, entries));
+    }
+    flushPendingWrites();
+    return super.call(matchCode, context, uri, method, extras);
+  }
+
+  @Override
+  public boolean isWriteMethod(int matchCode, @NonNull String method) {
+    if (matchCode == getItemSetMatchCode() && (METHOD_PUT.equals(method) || METHOD_PUT_MANY.equals(method))) {
+      return true;
+    }
+    return super.isWriteMethod(matchCode, method);
+  }
+
+  /**
+   * 读取值
+   *
+   * @param key 键
+   * @return 值，不存在时返回空
+   */
+  @Nullable
+  public String get(@NonNull String key) {
+    synchronized (cacheLock) {
+      ensureCacheLoaded();
+      return cache.get(key);
+    }
+  }
+
+  /**
+   * 读取多个值
+   *
+   * @param keys 键列表
+   * @return 以键为键的全部已存在值
+   */
+  @NonNull
+  public Bundle getMany(@NonNull String[] keys) {
+    Bundle result = new Bundle();
+
+    synchronized (cacheLock) {
+      ensureCacheLoaded();
+
+      for (String key : keys) {
+        String value = cache.get(key);
+
+        if (value != null) {
+          result.putString(key, value);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 写入多个值
+   *
+   * <p>更新内存数据后立即返回，并在有值发生变化时发送一次变更通知；数据库写入由后台线程分批完成。</p>
+   *
+   * @param context 上下文
+   * @param entries 键值，值为空时删除该键
+   * @return 值发生变化的键个数
+   */
+  public int putMany(Context context, @NonNull Bundle entries) {
+    int count = 0;
+
+    for (String key : entries.keySet()) {
+      Object value = entries.get(key);
+
+      if (value != null && !(value instanceof String)) {
+        throw new IllegalArgumentException("value is not a string: " + key);
+      }
+    }
+    synchronized (cacheLock) {
+      ensureCacheLoaded();
+
+      for (String key : entries.keySet()) {
+        Object value = entries.get(key);
+        String oldValue = value != null ? cache.put(key, (String) value) : cache.remove(key);
+
+        if (value == null ? oldValue == null : value.equals(oldValue)) {
+          continue;
+        }
+        ContentValues values = new ContentValues(2);
+        values.put(COLUMN_NAME, key);
+        values.put(COLUMN_VALUE, (String) value);
+
+        if (!writeQueue.offer(values)) {
+          writeEntry(getWritableDatabase(), values);
+          onEntriesPersisted();
+        }
+        ++count;
+      }
+    }
+    if (count > 0) {
+      notifyChange(context, getTableConfig().contentUri);
+    }
+    return count;
+  }
+
+  /**
+   * 载入全部键值
+   *
+   * <p>需持有缓存锁调用。载入前等待已排队的写入完成。</p>
+   */
+  private void ensureCacheLoaded() {
+    if (cacheLoaded) {
+      return;
+    }
+    SQLiteOpenHelper databaseHelper = getDatabaseHelper();
+
+    if (databaseHelper == null) {
+      throw new IllegalStateException("database not ready: " + getTableConfig().tableName);
+    }
+    flushPendingWrites();
+    Cursor c = databaseHelper.getReadableDatabase().rawQuery("SELECT " + COLUMN_NAME + "," + COLUMN_VALUE + " FROM " + getTableConfig().tableName, null);
+
+    try {
+      cache.clear();
+
+      while (c.moveToNext()) {
+        if (!c.isNull(1)) {
+          cache.put(c.getString(0), c.getString(1));
+        }
+      }
+    } finally {
+      c.close();
+    }
+    cacheLoaded = true;
+  }
+
+  @Override
+  protected void onTableChanged() {
+    super.onTableChanged();
+
+    synchronized (cacheLock) {
+      cacheLoaded = false;
+      cache.clear();
+    }
+  }
+
+  @Override
+  public Cursor query(int matchCode, Context context, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+    flushPendingWrites();
+    return super.query(matchCode, context, uri, projection, selection, selectionArgs, sortOrder);
+  }
+
+  @Override
+  public Uri insert(int matchCode, Context context, @NonNull Uri uri, ContentValues values) {
+    flushPendingWrites();
+    return super.insert(matchCode, context, uri, values);
+  }
+
+  @Override
+  public int bulkInsert(int matchCode, Context context, @NonNull Uri uri, @NonNull ContentValues[] values) {
+    flushPendingWrites();
+    return super.bulkInsert(matchCode, context, uri, values);
+  }
+
+  @Override
+  public int delete(int matchCode, Context context, @NonNull Uri uri, String selection, String[] selectionArgs) {
+    flushPendingWrites();
+    return super.delete(matchCode, context, uri, selection, selectionArgs);
+  }
+
+  @Override
+  public int update(int matchCode, Context context, @NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+    flushPendingWrites();
+    return super.update(matchCode, context, uri, values, selection, selectionArgs);
+  }
+
+  @Override
+  public ParcelFileDescriptor openFile(int matchCode, Context context, @NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    flushPendingWrites();
+    return super.openFile(matchCode, context, uri, mode);
+  }
+
+  /**
+   * 等待已排队的键值写入数据库
+   *
+   * <p>在当前线程持有事务时跳过，避免与写入线程互相等待。</p>
+   */
+  private void flushPendingWrites() {
+    SQLiteOpenHelper databaseHelper = getDatabaseHelper();
+
+    if (databaseHelper != null && !databaseHelper.getWritableDatabase().inTransaction()) {
+      writeQueue.flush();
+    }
+  }
+
+  private final WriteBehindQueue.Writer writer = new WriteBehindQueue.Writer() {
+    @Override
+    public void writeBatch(@NonNull List<ContentValues> batch) {
+      Map<String, ContentValues> latest = new LinkedHashMap<>();
+
+      for (ContentValues values : batch) {
+        latest.put(values.getAsString(COLUMN_NAME), values);
+      }
+      SQLiteDatabase db = getWritableDatabase();
+
+      db.beginTransaction();
+      try {
+        for (ContentValues values : latest.values()) {
+          writeEntry(db, values);
+        }
+        db.setTransactionSuccessful();
+      } finally {
+        db.endTransaction();
+      }
+      onEntriesPersisted();
+    }
+
+    @Override
+    public void writeRow(@NonNull ContentValues values) {
+      writeEntry(getWritableDatabase(), values);
+      onEntriesPersisted();
+    }
+  };
+
+  /**
+   * 写入单个键值，值为空时删除
+   *
+   * @param db 数据库
+   * @param values 键值
+   */
+  private void writeEntry(@NonNull SQLiteDatabase db, @NonNull ContentValues values) {
+    String tableName = getTableConfig().tableName;
+    String[] args = new String[] {values.getAsString(COLUMN_NAME)};
+
+    if (values.get(COLUMN_VALUE) == null) {
+      db.delete(tableName, COLUMN_NAME + "=?", args);
+      return;
+    }
+    if (db.update(tableName, values, COLUMN_NAME + "=?", args) == 0 && db.insert(tableName, null, values) == -1L) {
+      throw new SQLException("failed to insert row into " + getTableConfig().contentUri);
+    }
+  }
+
+  /**
+   * 键值写入数据库后，使查询结果缓存失效，并检查变更日志大小
+   */
+  private void onEntriesPersisted() {
+    QueryCache queryCache = getQueryCache();
+
+    if (queryCache != null) {
+      queryCache.invalidate();
+    }
+    checkChangeLogSize();
+  }
+
+  @NonNull
+  private SQLiteDatabase getWritableDatabase() {
+    SQLiteOpenHelper databaseHelper = getDatabaseHelper();
+
+    if (databaseHelper == null) {
+      throw new IllegalStateException("database not ready: " + getTableConfig().tableName);
+    }
+    return databaseHelper.getWritableDatabase();
+  }
+
+  @NonNull
+  private static String requireKey(@Nullable Bundle extras, @NonNull String method) {
+    String key = extras != null ? extras.getString(EXTRA_KEY) : null;
+
+    if (key == null) {
+      throw new IllegalArgumentException("key not found: " + method);
+    }
+    return key;
+  }
+
+  @NonNull
+  private static Bundle toCountResult(int count) {
+    Bundle result = new Bundle();
+    result.putInt(EXTRA_COUNT, count);
+    return result;
+  }
+}
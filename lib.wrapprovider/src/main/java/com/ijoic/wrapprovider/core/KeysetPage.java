@@ -0,0 +1,384 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import java.util.Locale;
+
+/**
+ * 键集分页
+ *
+ * <p>数据集URI带有{@link #QUERY_PARAMETER_LIMIT}参数时按页查询，按默认排序列及"_id"排序，
+ * 以上一页返回的{@link #EXTRA_NEXT_PAGE_TOKEN}作为{@link #QUERY_PARAMETER_AFTER}参数查询下一页，
+ * 无需OFFSET，翻页耗时与页码无关。分页查询的排序固定，指定的排序与分页排序不一致时抛出异常。</p>
+ *
+ * <p>查询结果须包含"_id"及分页键列，指定查询数据集时自动追加，缺少时抛出异常。</p>
+ *
+ * <p>下页标识记录分页键的类型，整数及浮点数以CAST绑定为对应类型，与无类型亲和性的列比较时仍按数值比较。</p>
+ *
+ * <p>示例：<code>content://com.example.app/notes?limit=50&amp;after=1024,i1500000000</code></p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class KeysetPage {
+
+  /**
+   * 每页数量查询参数
+   */
+  public static final String QUERY_PARAMETER_LIMIT = "limit";
+
+  /**
+   * 页起始位置查询参数（上一页的下页标识）
+   */
+  public static final String QUERY_PARAMETER_AFTER = "after";
+
+  /**
+   * 下页标识（数据指针附加数据键），已到最后一页时不存在
+   */
+  public static final String EXTRA_NEXT_PAGE_TOKEN = "next_page_token";
+
+  private static final String COLUMN_ID = "_id";
+
+  private static final char TOKEN_SEPARATOR = ',';
+  private static final char TOKEN_NULL = 'n';
+  private static final char TOKEN_TEXT = 'v';
+  private static final char TOKEN_INTEGER = 'i';
+  private static final char TOKEN_REAL = 'r';
+
+  private final String keyColumn;
+  private final boolean descending;
+  private final int limit;
+  private final String defaultSortOrder;
+
+  private final boolean hasAfter;
+  private final long afterId;
+  private final char afterType;
+  private final String afterValue;
+
+  private KeysetPage(@NonNull String keyColumn, boolean descending, int limit, @Nullable String defaultSortOrder,
+                     boolean hasAfter, long afterId, char afterType, @Nullable String afterValue) {
+    this.keyColumn = keyColumn;
+    this.descending = descending;
+    this.limit = limit;
+    this.defaultSortOrder = defaultSortOrder;
+    this.hasAfter = hasAfter;
+    this.afterId = afterId;
+    this.afterType = afterType;
+    this.afterValue = afterValue;
+  }
+
+  /**
+   * 解析分页参数
+   *
+   * <p>分页键取自默认排序的第一列，默认排序为空或无法解析时使用"_id"。</p>
+   *
+   * @param uri 查询URI
+   * @param defaultSortOrder 默认排序
+   * @return 分页参数，URI不带分页参数时返回空
+   */
+  @Nullable
+  static KeysetPage parse(@NonNull Uri uri, @Nullable String defaultSortOrder) {
+    String limitText = uri.getQueryParameter(QUERY_PARAMETER_LIMIT);
+
+    if (TextUtils.isEmpty(limitText)) {
+      return null;
+    }
+    int limit;
+
+    try {
+      limit = Integer.parseInt(limitText);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid page limit: " + uri);
+    }
+    if (limit <= 0) {
+      throw new IllegalArgumentException("invalid page limit: " + uri);
+    }
+    String keyColumn = COLUMN_ID;
+    boolean descending = false;
+
+    if (!TextUtils.isEmpty(defaultSortOrder)) {
+      String[] terms = defaultSortOrder.split(",")[0].trim().split("\\s+");
+
+      if (terms.length <= 2 && !terms[0].isEmpty()) {
+        keyColumn = terms[0];
+        descending = terms.length == 2 && "DESC".equalsIgnoreCase(terms[1]);
+      }
+    }
+    String token = uri.getQueryParameter(QUERY_PARAMETER_AFTER);
+
+    if (TextUtils.isEmpty(token)) {
+      return new KeysetPage(keyColumn, descending, limit, defaultSortOrder, false, 0L, TOKEN_NULL, null);
+    }
+    int separator = token.indexOf(TOKEN_SEPARATOR);
+
+    try {
+      if (separator <= 0 || separator + 1 >= token.length()) {
+        throw new IllegalArgumentException("invalid page token: " + token);
+      }
+      long afterId = Long.parseLong(token.substring(0, separator));
+      char type = token.charAt(separator + 1);
+      String afterValue;
+
+      if (type == TOKEN_NULL) {
+        afterValue = null;
+      } else if (type == TOKEN_TEXT) {
+        afterValue = token.substring(separator + 2);
+      } else if (type == TOKEN_INTEGER) {
+        afterValue = String.valueOf(Long.parseLong(token.substring(separator + 2)));
+      } else if (type == TOKEN_REAL) {
+        afterValue = String.valueOf(Double.parseDouble(token.substring(separator + 2)));
+      } else {
+        throw new IllegalArgumentException("invalid page token: " + token);
+      }
+      return new KeysetPage(keyColumn, descending, limit, defaultSortOrder, true, afterId, type, afterValue);
+
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("invalid page token: " + token);
+    }
+  }
+
+  /**
+   * 获取每页数量
+   *
+   * @return 每页数量
+   */
+  @NonNull
+  String getLimit() {
+    return String.valueOf(limit);
+  }
+
+  /**
+   * 检查查询指定的排序
+   *
+   * <p>为空、与默认排序或分页排序一致时通过。</p>
+   *
+   * @param sortOrder 查询指定的排序
+   * @throws IllegalArgumentException 排序与分页排序冲突
+   */
+  void checkSortOrder(@Nullable String sortOrder) {
+    if (TextUtils.isEmpty(sortOrder)) {
+      return;
+    }
+    String normalized = normalizeSortOrder(sortOrder);
+
+    if (normalized.equals(normalizeSortOrder(getSortOrder()))
+      || (!TextUtils.isEmpty(defaultSortOrder) && normalized.equals(normalizeSortOrder(defaultSortOrder)))) {
+      return;
+    }
+    throw new IllegalArgumentException("sort order conflicts with keyset page order " + getSortOrder() + ": " + sortOrder);
+  }
+
+  @NonNull
+  private static String normalizeSortOrder(@NonNull String sortOrder) {
+    return sortOrder.trim().replaceAll("\\s*,\\s*", ",").replaceAll("\\s+", " ").toUpperCase(Locale.US);
+  }
+
+  /**
+   * 获取分页排序
+   *
+   * @return 分页排序
+   */
+  @NonNull
+  String getSortOrder() {
+    String direction = descending ? " DESC" : " ASC";
+
+    if (COLUMN_ID.equals(keyColumn)) {
+      return COLUMN_ID + direction;
+    }
+    return keyColumn + direction + ", " + COLUMN_ID + direction;
+  }
+
+  /**
+   * 追加分页键列
+   *
+   * @param projection 查询数据集
+   * @return 包含分页键列的查询数据集
+   */
+  @Nullable
+  String[] appendProjection(@Nullable String[] projection) {
+    if (projection == null) {
+      return null;
+    }
+    boolean hasId = false;
+    boolean hasKey = false;
+
+    for (String column : projection) {
+      hasId |= COLUMN_ID.equals(column);
+      hasKey |= keyColumn.equals(column);
+    }
+    if (hasId && hasKey) {
+      return projection;
+    }
+    int extraCount = (hasId ? 0 : 1) + (hasKey || COLUMN_ID.equals(keyColumn) ? 0 : 1);
+    String[] result = new String[projection.length + extraCount];
+    System.arraycopy(projection, 0, result, 0, projection.length);
+    int index = projection.length;
+
+    if (!hasId) {
+      result[index++] = COLUMN_ID;
+    }
+    if (!hasKey && !COLUMN_ID.equals(keyColumn)) {
+      result[index] = keyColumn;
+    }
+    return result;
+  }
+
+  /**
+   * 追加分页选择条件
+   *
+   * @param selection 选择条件
+   * @return 包含分页条件的选择条件
+   */
+  @Nullable
+  String appendSelection(@Nullable String selection) {
+    if (!hasAfter) {
+      return selection;
+    }
+    String idOperator = descending ? "<" : ">";
+    String placeholder = getValuePlaceholder();
+    String condition;
+
+    if (COLUMN_ID.equals(keyColumn)) {
+      condition = COLUMN_ID + idOperator + "?";
+
+    } else if (afterValue == null) {
+      // NULLs sort first in ascending order, last in descending order.
+      condition = descending
+        ? keyColumn + " IS NULL AND " + COLUMN_ID + "<?"
+        : keyColumn + " IS NOT NULL OR (" + keyColumn + " IS NULL AND " + COLUMN_ID + ">?)";
+
+    } else {
+      condition = keyColumn + idOperator + placeholder + " OR (" + keyColumn + "=" + placeholder + " AND " + COLUMN_ID + idOperator + "?)";
+
+      if (descending) {
+        condition = condition + " OR " + keyColumn + " IS NULL";
+      }
+    }
+
+    if (TextUtils.isEmpty(selection)) {
+      return condition;
+    }
+    return "(" + selection + ") AND (" + condition + ")";
+  }
+
+  /**
+   * 按下页标识中的分页键类型获取参数占位符
+   *
+   * <p>选择条件参数均以文本绑定，数值键以CAST转换为对应类型。</p>
+   */
+  @NonNull
+  private String getValuePlaceholder() {
+    switch (afterType) {
+      case TOKEN_INTEGER:
+        return "CAST(? AS INTEGER)";
+      case TOKEN_REAL:
+        return "CAST(? AS REAL)";
+      default:
+        return "?";
+    }
+  }
+
+  /**
+   * 追加分页选择条件参数
+   *
+   * @param selectionArgs 选择条件参数
+   * @return 包含分页条件参数的选择条件参数
+   */
+  @Nullable
+  String[] appendSelectionArgs(@Nullable String[] selectionArgs) {
+    if (!hasAfter) {
+      return selectionArgs;
+    }
+    String id = String.valueOf(afterId);
+    String[] pageArgs;
+
+    if (COLUMN_ID.equals(keyColumn) || afterValue == null) {
+      pageArgs = new String[] {id};
+    } else {
+      pageArgs = new String[] {afterValue, afterValue, id};
+    }
+    if (selectionArgs == null || selectionArgs.length == 0) {
+      return pageArgs;
+    }
+    String[] args = new String[selectionArgs.length + pageArgs.length];
+    System.arraycopy(selectionArgs, 0, args, 0, selectionArgs.length);
+    System.arraycopy(pageArgs, 0, args, selectionArgs.length, pageArgs.length);
+    return args;
+  }
+
+  /**
+   * 包装分页结果
+   *
+   * <p>当前页已满时，在数据指针附加数据中返回下页标识。</p>
+   *
+   * @param cursor 查询结果
+   * @return 分页结果
+   * @throws IllegalArgumentException 查询结果缺少"_id"或分页键列，此时关闭查询结果
+   */
+  @NonNull
+  Cursor wrap(@NonNull Cursor cursor) {
+    int idIndex = cursor.getColumnIndex(COLUMN_ID);
+    int keyIndex = cursor.getColumnIndex(keyColumn);
+
+    // without these columns no next page token can be built and paging would stop silently.
+    if (idIndex == -1 || keyIndex == -1) {
+      cursor.close();
+      throw new IllegalArgumentException("keyset page requires columns " + COLUMN_ID + " and " + keyColumn + " in the result");
+    }
+    String nextToken = null;
+
+    if (cursor.getCount() >= limit && cursor.moveToLast()) {
+      nextToken = buildToken(cursor, idIndex, keyIndex);
+      cursor.moveToPosition(-1);
+    }
+    return new PageCursor(cursor, nextToken);
+  }
+
+  @NonNull
+  private static String buildToken(@NonNull Cursor cursor, int idIndex, int keyIndex) {
+    StringBuilder token = new StringBuilder(32);
+    token.append(cursor.getLong(idIndex)).append(TOKEN_SEPARATOR);
+
+    switch (cursor.getType(keyIndex)) {
+      case Cursor.FIELD_TYPE_NULL:
+        token.append(TOKEN_NULL);
+        break;
+      case Cursor.FIELD_TYPE_INTEGER:
+        token.append(TOKEN_INTEGER).append(cursor.getLong(keyIndex));
+        break;
+      case Cursor.FIELD_TYPE_FLOAT:
+        token.append(TOKEN_REAL).append(cursor.getDouble(keyIndex));
+        break;
+      default:
+        token.append(TOKEN_TEXT).append(cursor.getString(keyIndex));
+        break;
+    }
+    return token.toString();
+  }
+
+  private static final class PageCursor extends CursorWrapper {
+    private final Bundle extras;
+
+    private PageCursor(@NonNull Cursor cursor, @Nullable String nextToken) {
+      super(cursor);
+      Bundle source = cursor.getExtras();
+      Bundle extras = source != null ? new Bundle(source) : new Bundle();
+
+      if (nextToken != null) {
+        extras.putString(EXTRA_NEXT_PAGE_TOKEN, nextToken);
+      }
+      this.extras = extras;
+    }
+
+    @Override
+    public Bundle getExtras() {
+      return extras;
+    }
+  }
+}
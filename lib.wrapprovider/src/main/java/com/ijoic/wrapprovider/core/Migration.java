@@ -0,0 +1,22 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+
+/**
+ * 数据库迁移步骤
+ *
+ * <p>每个步骤负责将数据表从上一版本升级到注册的目标版本。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public interface Migration {
+
+  /**
+   * 执行迁移
+   *
+   * @param db 数据库
+   */
+  void migrate(@NonNull SQLiteDatabase db);
+}
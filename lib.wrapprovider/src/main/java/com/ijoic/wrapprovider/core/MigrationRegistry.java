@@ -0,0 +1,190 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.util.Log;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 数据库迁移-注册表
+ *
+ * <p>按目标版本注册迁移步骤，升级时从旧版本逐级执行至新版本。本数据表无变更的版本通过{@link #skip(int)}声明。
+ * 缺失步骤（既未注册也未声明跳过）的处理取决于数据库是否由多个数据表共用，见{@link BaseProviderHelper#setSharedDatabase(boolean)}：
+ * 独占数据库时，每次版本升级均属于本数据表，缺失步骤时删除并重建数据表（{@link #setFallbackToDestructive(boolean)}）或抛出异常；
+ * 共用数据库时，缺失的版本可能属于其他数据表，记录日志后跳过，从不删除本数据表。
+ * 迁移在{@link android.database.sqlite.SQLiteOpenHelper}的升级事务中执行，任一步骤失败时整体回滚。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class MigrationRegistry {
+
+  private static final String TAG = "MigrationRegistry";
+
+  private static final Migration SKIP = new Migration() {
+    @Override
+    public void migrate(@NonNull SQLiteDatabase db) {
+      // do nothing.
+    }
+  };
+
+  private final SparseArray<Migration> migrationMap = new SparseArray<>();
+  private final List<Record> records = new ArrayList<>();
+  private boolean fallbackToDestructive;
+
+  /**
+   * 注册迁移步骤
+   *
+   * @param toVersion 目标版本，步骤负责从 <code>toVersion - 1</code> 升级至 <code>toVersion</code>
+   * @param migration 迁移步骤
+   * @return 迁移注册表
+   */
+  @NonNull
+  public MigrationRegistry add(int toVersion, @NonNull Migration migration) {
+    if (migrationMap.get(toVersion) != null) {
+      throw new IllegalArgumentException("duplicate migration to version: " + toVersion);
+    }
+    migrationMap.put(toVersion, migration);
+    return this;
+  }
+
+  /**
+   * 声明本数据表在目标版本无变更
+   *
+   * @param toVersion 目标版本
+   * @return 迁移注册表
+   */
+  @NonNull
+  public MigrationRegistry skip(int toVersion) {
+    return add(toVersion, SKIP);
+  }
+
+  /**
+   * 设置独占数据库缺失迁移步骤时是否删除并重建数据表
+   *
+   * <p>默认不删除，升级时抛出{@link IllegalStateException}。共用数据库时不生效，缺失的版本总是跳过。</p>
+   *
+   * @param fallbackToDestructive 是否删除并重建数据表
+   * @return 迁移注册表
+   */
+  @NonNull
+  public MigrationRegistry setFallbackToDestructive(boolean fallbackToDestructive) {
+    this.fallbackToDestructive = fallbackToDestructive;
+    return this;
+  }
+
+  /**
+   * 判断是否允许删除并重建数据表
+   *
+   * @return 是否允许删除并重建数据表
+   */
+  public boolean isFallbackToDestructive() {
+    return fallbackToDestructive;
+  }
+
+  /**
+   * 判断是否未注册任何迁移步骤
+   *
+   * @return 是否未注册任何迁移步骤
+   */
+  public boolean isEmpty() {
+    return migrationMap.size() == 0;
+  }
+
+  /**
+   * 判断能否从旧版本逐级迁移至新版本
+   *
+   * @param oldVersion 旧版本
+   * @param newVersion 新版本
+   * @return 能否迁移
+   */
+  public boolean canMigrate(int oldVersion, int newVersion) {
+    return findMissingVersion(oldVersion, newVersion) == -1;
+  }
+
+  /**
+   * 查找首个缺失迁移步骤的版本
+   *
+   * @param oldVersion 旧版本
+   * @param newVersion 新版本
+   * @return 首个缺失步骤的目标版本，不缺失时返回-1
+   */
+  public int findMissingVersion(int oldVersion, int newVersion) {
+    for (int version = oldVersion + 1; version <= newVersion; ++version) {
+      if (migrationMap.get(version) == null) {
+        return version;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 从旧版本逐级迁移至新版本
+   *
+   * <p>缺失步骤的版本跳过，是否允许缺失由调用方通过{@link #findMissingVersion(int, int)}检查。</p>
+   *
+   * @param db 数据库
+   * @param oldVersion 旧版本
+   * @param newVersion 新版本
+   */
+  public void migrate(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+    for (int version = oldVersion + 1; version <= newVersion; ++version) {
+      Migration migration = migrationMap.get(version);
+
+      if (migration == null || migration == SKIP) {
+        continue;
+      }
+      long startTime = SystemClock.elapsedRealtime();
+      migration.migrate(db);
+      long duration = SystemClock.elapsedRealtime() - startTime;
+
+      synchronized (records) {
+        records.add(new Record(version - 1, version, duration));
+      }
+      Log.i(TAG, "migrate " + (version - 1) + " -> " + version + " in " + duration + "ms");
+    }
+  }
+
+  /**
+   * 获取已执行的迁移记录
+   *
+   * @return 迁移记录
+   */
+  @NonNull
+  public List<Record> getRecords() {
+    synchronized (records) {
+      return Collections.unmodifiableList(new ArrayList<>(records));
+    }
+  }
+
+  /**
+   * 迁移记录
+   */
+  public static final class Record {
+    /**
+     * 起始版本
+     */
+    public final int fromVersion;
+
+    /**
+     * 目标版本
+     */
+    public final int toVersion;
+
+    /**
+     * 耗时（毫秒）
+     */
+    public final long durationMillis;
+
+    private Record(int fromVersion, int toVersion, long durationMillis) {
+      this.fromVersion = fromVersion;
+      this.toVersion = toVersion;
+      this.durationMillis = durationMillis;
+    }
+  }
+}
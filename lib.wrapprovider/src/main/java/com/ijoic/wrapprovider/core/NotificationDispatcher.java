@@ -0,0 +1,45 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+/**
+ * 变更通知-分发器
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public interface NotificationDispatcher {
+
+  /**
+   * 提交变更通知
+   *
+   * <p>分发器可暂存该通知，并在之后的某个时刻统一发送。</p>
+   *
+   * @param context 上下文
+   * @param uri 变更URI
+   */
+  void notifyChange(Context context, @NonNull Uri uri);
+
+  /**
+   * 立即发送全部暂存的变更通知
+   *
+   * @param context 上下文
+   */
+  void flush(Context context);
+
+  /**
+   * 获取已发送的通知数
+   *
+   * @return 已发送的通知数
+   */
+  long getDispatchedCount();
+
+  /**
+   * 获取被合并（未实际发送）的通知数
+   *
+   * @return 被合并的通知数
+   */
+  long getSuppressedCount();
+}
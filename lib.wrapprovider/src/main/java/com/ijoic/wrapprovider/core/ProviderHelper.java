@@ -13,6 +13,9 @@ import android.support.annotation.Nullable;
 /**
  * 数据库提供器-帮助器
  *
+ * <p>批量插入、文件导出、方法调用等扩展能力见{@link ExtendedProviderHelper}；
+ * 仅实现本接口的帮助器由{@link ProviderHelperAdapter}补齐默认行为。</p>
+ *
  * @author ijoic 963505345@qq.com
  * @version 1.0
  */
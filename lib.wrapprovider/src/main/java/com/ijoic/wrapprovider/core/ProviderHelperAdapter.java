@@ -0,0 +1,165 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.ijoic.wrapprovider.DatabaseConfig;
+
+import java.io.FileNotFoundException;
+
+/**
+ * 数据库提供器-帮助器适配器
+ *
+ * <p>为仅实现{@link ProviderHelper}的帮助器补齐{@link ExtendedProviderHelper}的默认行为：
+ * 批量插入逐条调用insert，不支持打开文件及方法调用，忽略变更通知分发器及慢操作日志，使用共享数据库。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class ProviderHelperAdapter implements ExtendedProviderHelper {
+
+  private final ProviderHelper helper;
+
+  /**
+   * 构造函数
+   *
+   * @param helper 数据库提供器-帮助器
+   */
+  public ProviderHelperAdapter(@NonNull ProviderHelper helper) {
+    this.helper = helper;
+  }
+
+  /**
+   * 获取扩展帮助器
+   *
+   * @param helper 数据库提供器-帮助器
+   * @return 已实现{@link ExtendedProviderHelper}时返回自身，否则返回适配器
+   */
+  @NonNull
+  public static ExtendedProviderHelper wrap(@NonNull ProviderHelper helper) {
+    if (helper instanceof ExtendedProviderHelper) {
+      return (ExtendedProviderHelper) helper;
+    }
+    return new ProviderHelperAdapter(helper);
+  }
+
+  @Override
+  public void setDatabaseHelper(@NonNull SQLiteOpenHelper databaseHelper) {
+    helper.setDatabaseHelper(databaseHelper);
+  }
+
+  @Override
+  public void setNotificationDispatcher(@Nullable NotificationDispatcher dispatcher) {
+    // do nothing.
+  }
+
+  @Override
+  public void setSlowOperationLog(@Nullable SlowOperationLog slowOperationLog) {
+    // do nothing.
+  }
+
+  @Nullable
+  @Override
+  public DatabaseConfig getShardConfig() {
+    return null;
+  }
+
+  @Override
+  public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+    helper.onCreateDatabase(db);
+  }
+
+  @Override
+  public void onUpgradeDatabase(@NonNull SQLiteDatabase db, int oldVersion, int newVersion) {
+    helper.onUpgradeDatabase(db, oldVersion, newVersion);
+  }
+
+  @Override
+  public void onSchemaChanged(@NonNull SQLiteDatabase db) {
+    // do nothing.
+  }
+
+  @Override
+  public void onPrewarmDatabase(@NonNull SQLiteDatabase db) {
+    // do nothing.
+  }
+
+  @Override
+  public void initUriMatcher(@NonNull UriMatcher uriMatcher, @NonNull String authority, int matchCodeMask) {
+    helper.initUriMatcher(uriMatcher, authority, matchCodeMask);
+  }
+
+  @Nullable
+  @Override
+  public String getMimeType(int matchCode) {
+    return helper.getMimeType(matchCode);
+  }
+
+  @Nullable
+  @Override
+  public String getMimeType(int matchCode, @NonNull Uri uri) {
+    return helper.getMimeType(matchCode);
+  }
+
+  @Override
+  public Cursor query(int matchCode, Context context, @NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+    return helper.query(matchCode, context, uri, projection, selection, selectionArgs, sortOrder);
+  }
+
+  @Override
+  public Uri insert(int matchCode, Context context, @NonNull Uri uri, ContentValues values) {
+    return helper.insert(matchCode, context, uri, values);
+  }
+
+  /**
+   * 批量插入数据
+   *
+   * <p>与{@link android.content.ContentProvider#bulkInsert(Uri, ContentValues[])}相同，逐条插入，不开启事务。</p>
+   */
+  @Override
+  public int bulkInsert(int matchCode, Context context, @NonNull Uri uri, @NonNull ContentValues[] values) {
+    int count = 0;
+
+    for (ContentValues item : values) {
+      if (helper.insert(matchCode, context, uri, item) != null) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int delete(int matchCode, Context context, @NonNull Uri uri, String selection, String[] selectionArgs) {
+    return helper.delete(matchCode, context, uri, selection, selectionArgs);
+  }
+
+  @Override
+  public int update(int matchCode, Context context, @NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+    return helper.update(matchCode, context, uri, values, selection, selectionArgs);
+  }
+
+  @Override
+  public ParcelFileDescriptor openFile(int matchCode, Context context, @NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+    throw new FileNotFoundException("unsupported uri: " + uri);
+  }
+
+  @Nullable
+  @Override
+  public Bundle call(int matchCode, Context context, @NonNull Uri uri, @NonNull String method, @Nullable Bundle extras) {
+    return null;
+  }
+
+  @Override
+  public boolean isWriteMethod(int matchCode, @NonNull String method) {
+    return false;
+  }
+}
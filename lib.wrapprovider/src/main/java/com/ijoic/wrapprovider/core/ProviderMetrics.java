@@ -0,0 +1,80 @@
+package com.ijoic.wrapprovider.core;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import java.io.PrintWriter;
+
+/**
+ * 内容提供器-性能指标
+ *
+ * <p>内容提供器在各操作入口记录耗时与行数，未配置时不产生额外开销。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public interface ProviderMetrics {
+
+  /**
+   * 通过{@link android.content.ContentProvider#call(String, String, Bundle)}读取指标的方法名
+   */
+  String METHOD_DUMP_METRICS = "dump_metrics";
+
+  /**
+   * 查询操作
+   */
+  int OPERATION_QUERY = 0;
+
+  /**
+   * 插入操作
+   */
+  int OPERATION_INSERT = 1;
+
+  /**
+   * 批量插入操作
+   */
+  int OPERATION_BULK_INSERT = 2;
+
+  /**
+   * 更新操作
+   */
+  int OPERATION_UPDATE = 3;
+
+  /**
+   * 删除操作
+   */
+  int OPERATION_DELETE = 4;
+
+  /**
+   * 获取类型操作
+   */
+  int OPERATION_GET_TYPE = 5;
+
+  /**
+   * 记录一次操作
+   *
+   * @param operation 操作类型
+   * @param matchCode 匹配码
+   * @param uri 操作URI
+   * @param durationNanos 耗时（纳秒）
+   * @param rows 影响行数或查询结果行数
+   * @param success 是否成功
+   */
+  void record(int operation, int matchCode, @NonNull Uri uri, long durationNanos, int rows, boolean success);
+
+  /**
+   * 导出指标
+   *
+   * @return 指标数据
+   */
+  @NonNull
+  Bundle dump();
+
+  /**
+   * 输出可读指标
+   *
+   * @param writer 输出
+   */
+  void dump(@NonNull PrintWriter writer);
+}
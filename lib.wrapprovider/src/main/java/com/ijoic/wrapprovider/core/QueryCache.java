@@ -0,0 +1,250 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 查询结果-缓存
+ *
+ * <p>以规范化的查询条件为键，按LRU策略缓存单表的查询结果。
+ * 命中时返回结果的副本，数据表发生写入时整体失效。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class QueryCache {
+
+  private static final char KEY_SEPARATOR = '\u0000';
+
+  private final int maxSize;
+  private final int maxRows;
+
+  private final Map<String, CachedResult> resultMap;
+  private long generation;
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * 构造函数
+   *
+   * @param maxSize 最大缓存结果数
+   * @param maxRows 单个缓存结果的最大行数
+   */
+  QueryCache(int maxSize, int maxRows) {
+    this.maxSize = maxSize;
+    this.maxRows = maxRows;
+    this.resultMap = new LinkedHashMap<String, CachedResult>(maxSize, 0.75F, true) {
+      @Override
+      protected boolean removeEldestEntry(Entry<String, CachedResult> eldest) {
+        if (size() > QueryCache.this.maxSize) {
+          ++evictionCount;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * 生成缓存键
+   *
+   * @param uri 查询URI（包含查询参数）
+   * @param projection 查询数据集
+   * @param selection 选择条件
+   * @param selectionArgs 选择条件参数
+   * @param sortOrder 排序顺序
+   * @return 缓存键
+   */
+  @NonNull
+  static String buildKey(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection, @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+    StringBuilder key = new StringBuilder(128);
+    key.append(uri.getEncodedPath()).append('?').append(uri.getEncodedQuery()).append(KEY_SEPARATOR);
+
+    if (projection != null) {
+      for (String column : projection) {
+        key.append(column).append(',');
+      }
+    }
+    key.append(KEY_SEPARATOR);
+
+    if (selection != null) {
+      key.append(selection.trim());
+    }
+    key.append(KEY_SEPARATOR);
+
+    if (selectionArgs != null) {
+      for (String arg : selectionArgs) {
+        key.append(arg).append(KEY_SEPARATOR);
+      }
+    }
+    key.append(KEY_SEPARATOR);
+
+    if (sortOrder != null) {
+      key.append(sortOrder.trim());
+    }
+    return key.toString();
+  }
+
+  /**
+   * 获取缓存结果
+   *
+   * @param key 缓存键
+   * @return 缓存结果的副本，未命中时返回空
+   */
+  @Nullable
+  Cursor get(@NonNull String key) {
+    CachedResult result;
+
+    synchronized (this) {
+      result = resultMap.get(key);
+
+      if (result == null) {
+        ++missCount;
+        return null;
+      }
+      ++hitCount;
+    }
+    return result.newCursor();
+  }
+
+  /**
+   * 获取当前缓存代数
+   *
+   * <p>查询前获取，写入缓存时若代数已变化，说明期间发生过写入，结果不再缓存。</p>
+   *
+   * @return 缓存代数
+   */
+  synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * 缓存查询结果
+   *
+   * @param key 缓存键
+   * @param generation 查询前的缓存代数
+   * @param cursor 查询结果
+   * @return 交还给调用方的数据指针
+   */
+  @NonNull
+  Cursor put(@NonNull String key, long generation, @NonNull Cursor cursor) {
+    if (cursor.getCount() > maxRows) {
+      return cursor;
+    }
+    CachedResult result;
+
+    try {
+      result = CachedResult.from(cursor);
+    } finally {
+      cursor.close();
+    }
+
+    synchronized (this) {
+      if (this.generation == generation) {
+        resultMap.put(key, result);
+      }
+    }
+    return result.newCursor();
+  }
+
+  /**
+   * 使全部缓存失效
+   */
+  synchronized void invalidate() {
+    ++generation;
+    resultMap.clear();
+  }
+
+  /**
+   * 获取命中次数
+   *
+   * @return 命中次数
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * 获取未命中次数
+   *
+   * @return 未命中次数
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * 获取淘汰次数
+   *
+   * @return 淘汰次数
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  private static final class CachedResult {
+    private final String[] columnNames;
+    private final Object[][] rows;
+
+    private CachedResult(@NonNull String[] columnNames, @NonNull Object[][] rows) {
+      this.columnNames = columnNames;
+      this.rows = rows;
+    }
+
+    @NonNull
+    private static CachedResult from(@NonNull Cursor cursor) {
+      String[] columnNames = cursor.getColumnNames();
+      Object[][] rows = new Object[cursor.getCount()][];
+      int columnCount = columnNames.length;
+      int rowIndex = 0;
+
+      cursor.moveToPosition(-1);
+
+      while (cursor.moveToNext() && rowIndex < rows.length) {
+        Object[] row = new Object[columnCount];
+
+        for (int i = 0; i < columnCount; ++i) {
+          switch (cursor.getType(i)) {
+            case Cursor.FIELD_TYPE_INTEGER:
+              row[i] = cursor.getLong(i);
+              break;
+            case Cursor.FIELD_TYPE_FLOAT:
+              row[i] = cursor.getDouble(i);
+              break;
+            case Cursor.FIELD_TYPE_STRING:
+              row[i] = cursor.getString(i);
+              break;
+            case Cursor.FIELD_TYPE_BLOB:
+              row[i] = cursor.getBlob(i);
+              break;
+            default:
+              row[i] = null;
+              break;
+          }
+        }
+        rows[rowIndex++] = row;
+      }
+      return new CachedResult(columnNames, rows);
+    }
+
+    @NonNull
+    private Cursor newCursor() {
+      MatrixCursor cursor = new MatrixCursor(columnNames, rows.length);
+
+      for (Object[] row : rows) {
+        if (row != null) {
+          cursor.addRow(row);
+        }
+      }
+      return cursor;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 慢操作-日志
+ *
+ * <p>记录耗时超过阈值的查询、更新及删除操作，保存于固定容量的环形缓冲区中。
+ * SQL中的字面量被替换为"?"后作为语句标识，每个不同的语句仅执行一次EXPLAIN QUERY PLAN。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class SlowOperationLog {
+
+  /**
+   * 通过{@link android.content.ContentProvider#call(String, String, Bundle)}读取慢操作记录的方法名
+   */
+  public static final String METHOD_DUMP_SLOW_OPERATIONS = "dump_slow_operations";
+
+  private static final int MAX_PLAN_CACHE_SIZE = 64;
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+  private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+  private final long thresholdNanos;
+  private final Entry[] entries;
+  private int nextIndex;
+  private int size;
+
+  private final Map<String, String> planMap = new LinkedHashMap<String, String>(16, 0.75F, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      return size() > MAX_PLAN_CACHE_SIZE;
+    }
+  };
+
+  /**
+   * 构造函数
+   *
+   * @param thresholdMillis 慢操作阈值（毫秒）
+   * @param capacity 最大记录数
+   */
+  public SlowOperationLog(long thresholdMillis, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("invalid capacity: " + capacity);
+    }
+    this.thresholdNanos = thresholdMillis * 1000000L;
+    this.entries = new Entry[capacity];
+  }
+
+  /**
+   * 判断耗时是否超过阈值
+   *
+   * @param durationNanos 耗时（纳秒）
+   * @return 是否超过阈值
+   */
+  public boolean isSlow(long durationNanos) {
+    return durationNanos >= thresholdNanos;
+  }
+
+  /**
+   * 记录慢操作
+   *
+   * @param db 数据库
+   * @param operation 操作名称
+   * @param tableName 数据表名称
+   * @param sql 执行的SQL
+   * @param explainSql 用于EXPLAIN QUERY PLAN的查询语句
+   * @param args 参数
+   * @param durationNanos 耗时（纳秒）
+   * @param rows 影响行数或查询结果行数
+   */
+  public void record(@NonNull SQLiteDatabase db, @NonNull String operation, @NonNull String tableName, @NonNull String sql, @NonNull String explainSql, @Nullable String[] args, long durationNanos, int rows) {
+    String normalizedSql = normalize(sql);
+    String plan;
+
+    synchronized (planMap) {
+      plan = planMap.get(normalizedSql);
+    }
+    if (plan == null) {
+      plan = explain(db, explainSql, args);
+
+      synchronized (planMap) {
+        planMap.put(normalizedSql, plan);
+      }
+    }
+    Entry entry = new Entry(operation, tableName, normalizedSql, args != null ? args.length : 0, durationNanos / 1000000L, rows, System.currentTimeMillis(), plan);
+
+    synchronized (this) {
+      entries[nextIndex] = entry;
+      nextIndex = (nextIndex + 1) % entries.length;
+      size = Math.min(size + 1, entries.length);
+    }
+  }
+
+  /**
+   * 获取慢操作记录（由旧到新）
+   *
+   * @return 慢操作记录
+   */
+  @NonNull
+  public synchronized List<Entry> getEntries() {
+    List<Entry> result = new ArrayList<>(size);
+    int start = (nextIndex - size + entries.length) % entries.length;
+
+    for (int i = 0; i < size; ++i) {
+      result.add(entries[(start + i) % entries.length]);
+    }
+    return result;
+  }
+
+  /**
+   * 清空慢操作记录
+   */
+  public synchronized void clear() {
+    for (int i = 0; i < entries.length; ++i) {
+      entries[i] = null;
+    }
+    nextIndex = 0;
+    size = 0;
+  }
+
+  /**
+   * 导出慢操作记录
+   *
+   * @return 慢操作记录，各记录以序号为键
+   */
+  @NonNull
+  public Bundle dump() {
+    List<Entry> entries = getEntries();
+    Bundle result = new Bundle();
+
+    for (int i = 0; i < entries.size(); ++i) {
+      Entry entry = entries.get(i);
+      Bundle item = new Bundle();
+      item.putString("operation", entry.operation);
+      item.putString("table", entry.tableName);
+      item.putString("sql", entry.sql);
+      item.putInt("argCount", entry.argCount);
+      item.putLong("durationMillis", entry.durationMillis);
+      item.putInt("rows", entry.rows);
+      item.putLong("timestamp", entry.timestamp);
+      item.putString("queryPlan", entry.queryPlan);
+      result.putBundle(String.valueOf(i), item);
+    }
+    return result;
+  }
+
+  /**
+   * 输出可读慢操作记录
+   *
+   * @param writer 输出
+   */
+  public void dump(@NonNull PrintWriter writer) {
+    writer.println("slow operations:");
+
+    for (Entry entry : getEntries()) {
+      writer.println("  " + entry.operation + " " + entry.tableName + " " + entry.durationMillis + "ms rows=" + entry.rows + " args=" + entry.argCount);
+      writer.println("    " + entry.sql);
+      writer.println("    plan: " + entry.queryPlan.replace("\n", "; "));
+    }
+  }
+
+  /**
+   * 规范化SQL，将字面量替换为"?"，并合并IN列表
+   *
+   * @param sql SQL
+   * @return 规范化SQL
+   */
+  @NonNull
+  static String normalize(@NonNull String sql) {
+    String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+    result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+    result = IN_LIST.matcher(result).replaceAll("(?...)");
+    return result.trim().replaceAll("\\s+", " ");
+  }
+
+  @NonNull
+  private static String explain(@NonNull SQLiteDatabase db, @NonNull String explainSql, @Nullable String[] args) {
+    try {
+      Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + explainSql, args);
+
+      try {
+        int detailIndex = c.getColumnIndex("detail");
+        StringBuilder plan = new StringBuilder(64);
+
+        while (c.moveToNext()) {
+          if (plan.length() > 0) {
+            plan.append('\n');
+          }
+          plan.append(detailIndex >= 0 ? c.getString(detailIndex) : c.getString(c.getColumnCount() - 1));
+        }
+        return plan.toString();
+      } finally {
+        c.close();
+      }
+    } catch (RuntimeException e) {
+      return "explain failed: " + e.getMessage();
+    }
+  }
+
+  /**
+   * 慢操作记录
+   */
+  public static final class Entry {
+    /**
+     * 操作名称
+     */
+    public final String operation;
+
+    /**
+     * 数据表名称
+     */
+    public final String tableName;
+
+    /**
+     * 规范化SQL
+     */
+    public final String sql;
+
+    /**
+     * 参数个数
+     */
+    public final int argCount;
+
+    /**
+     * 耗时（毫秒）
+     */
+    public final long durationMillis;
+
+    /**
+     * 影响行数或查询结果行数
+     */
+    public final int rows;
+
+    /**
+     * 记录时间
+     */
+    public final long timestamp;
+
+    /**
+     * 查询计划
+     */
+    public final String queryPlan;
+
+    private Entry(String operation, String tableName, String sql, int argCount, long durationMillis, int rows, long timestamp, String queryPlan) {
+      this.operation = operation;
+      this.tableName = tableName;
+      this.sql = sql;
+      this.argCount = argCount;
+      this.durationMillis = durationMillis;
+      this.rows = rows;
+      this.timestamp = timestamp;
+      this.queryPlan = queryPlan;
+    }
+  }
+}
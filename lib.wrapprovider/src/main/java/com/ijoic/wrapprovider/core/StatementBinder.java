@@ -0,0 +1,22 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+
+/**
+ * 预编译语句-参数绑定器
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public interface StatementBinder {
+
+  /**
+   * 绑定参数
+   *
+   * <p>参数索引从1开始，与编译时给定的列顺序一致。</p>
+   *
+   * @param statement 预编译语句
+   */
+  void bind(@NonNull SQLiteStatement statement);
+}
@@ -0,0 +1,363 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 预编译语句-缓存
+ *
+ * <p>按写入的列集合缓存单表的插入、按ID或唯一键更新、按ID或唯一键删除及按唯一键查询语句。
+ * 语句在使用期间从缓存中取出，使用完毕后归还，执行SQL时不持有缓存锁。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+final class StatementCache {
+
+  private static final int MAX_CACHE_SIZE = 16;
+
+  private static final String KEY_INSERT = "I:";
+  private static final String KEY_UPDATE = "U:";
+  private static final String KEY_DELETE = "D:";
+  private static final String KEY_REPLACE = "R:";
+  private static final String KEY_LOOKUP = "L:";
+  private static final String KEY_UPDATE_BY_KEY = "UK:";
+  private static final String KEY_DELETE_BY_KEY = "DK:";
+
+  private final String tableName;
+  private final String hackColumn;
+
+  private SQLiteDatabase database;
+  private final Map<String, SQLiteStatement> statementMap = new LinkedHashMap<String, SQLiteStatement>(MAX_CACHE_SIZE, 0.75F, true) {
+    @Override
+    protected boolean removeEldestEntry(Entry<String, SQLiteStatement> eldest) {
+      if (size() > MAX_CACHE_SIZE) {
+        eldest.getValue().close();
+        return true;
+      }
+      return false;
+    }
+  };
+
+  /**
+   * 构造函数
+   *
+   * @param tableName 数据表名称
+   * @param hackColumn 默认空列
+   */
+  StatementCache(@NonNull String tableName, @Nullable String hackColumn) {
+    this.tableName = tableName;
+    this.hackColumn = hackColumn;
+  }
+
+  /**
+   * 清空缓存，并关闭全部预编译语句
+   */
+  synchronized void clear() {
+    for (SQLiteStatement statement : statementMap.values()) {
+      statement.close();
+    }
+    statementMap.clear();
+    database = null;
+  }
+
+  /**
+   * 插入数据
+   *
+   * @param db 数据库
+   * @param values 插入值
+   * @return 插入行ID，失败时返回-1
+   */
+  long insert(@NonNull SQLiteDatabase db, @Nullable ContentValues values) {
+    String[] columns = getSortedColumns(values);
+    String key = KEY_INSERT + TextUtils.join(",", columns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      statement = db.compileStatement(buildInsertSql("INSERT INTO ", columns));
+    }
+    try {
+      bindValues(statement, columns, values, 1);
+      return statement.executeInsert();
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  /**
+   * 插入数据
+   *
+   * @param db 数据库
+   * @param columns 插入列
+   * @param binder 参数绑定器
+   * @return 插入行ID，失败时返回-1
+   */
+  long insert(@NonNull SQLiteDatabase db, @NonNull String[] columns, @NonNull StatementBinder binder) {
+    String key = KEY_INSERT + TextUtils.join(",", columns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      statement = db.compileStatement(buildInsertSql("INSERT INTO ", columns));
+    }
+    try {
+      binder.bind(statement);
+      return statement.executeInsert();
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  /**
+   * 按ID更新数据
+   *
+   * @param db 数据库
+   * @param values 更新值
+   * @param rowId 行ID
+   * @return 更新行数
+   */
+  int updateById(@NonNull SQLiteDatabase db, @NonNull ContentValues values, long rowId) {
+    String[] columns = getSortedColumns(values);
+    String key = KEY_UPDATE + TextUtils.join(",", columns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      statement = db.compileStatement(buildUpdateSql(columns));
+    }
+    try {
+      bindValues(statement, columns, values, 1);
+      statement.bindLong(columns.length + 1, rowId);
+      return statement.executeUpdateDelete();
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  /**
+   * 按ID删除数据
+   *
+   * @param db 数据库
+   * @param rowId 行ID
+   * @return 删除行数
+   */
+  int deleteById(@NonNull SQLiteDatabase db, long rowId) {
+    SQLiteStatement statement = acquire(db, KEY_DELETE);
+
+    if (statement == null) {
+      statement = db.compileStatement("DELETE FROM " + tableName + " WHERE _id=?");
+    }
+    try {
+      statement.bindLong(1, rowId);
+      return statement.executeUpdateDelete();
+    } finally {
+      statement.clearBindings();
+      release(db, KEY_DELETE, statement);
+    }
+  }
+
+  /**
+   * 按唯一键更新数据
+   *
+   * @param db 数据库
+   * @param values 更新值（需包含唯一键列）
+   * @param keyColumns 唯一键列
+   * @return 更新行数
+   */
+  int updateByKey(@NonNull SQLiteDatabase db, @NonNull ContentValues values, @NonNull String[] keyColumns) {
+    String[] columns = getSortedColumns(values);
+    String key = KEY_UPDATE_BY_KEY + TextUtils.join(",", columns) + "|" + TextUtils.join(",", keyColumns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      StringBuilder sql = new StringBuilder(64);
+      sql.append("UPDATE ").append(tableName).append(" SET ");
+
+      for (int i = 0; i < columns.length; ++i) {
+        sql.append(i > 0 ? "," : "").append(columns[i]).append("=?");
+      }
+      appendKeyCondition(sql, keyColumns);
+      statement = db.compileStatement(sql.toString());
+    }
+    try {
+      bindValues(statement, columns, values, 1);
+      bindValues(statement, keyColumns, values, columns.length + 1);
+      return statement.executeUpdateDelete();
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  /**
+   * 按唯一键删除数据
+   *
+   * @param db 数据库
+   * @param keyColumns 唯一键列
+   * @param values 数据（需包含唯一键列）
+   * @return 删除行数
+   */
+  int deleteByKey(@NonNull SQLiteDatabase db, @NonNull String[] keyColumns, @NonNull ContentValues values) {
+    String key = KEY_DELETE_BY_KEY + TextUtils.join(",", keyColumns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      StringBuilder sql = new StringBuilder(64);
+      sql.append("DELETE FROM ").append(tableName);
+      appendKeyCondition(sql, keyColumns);
+      statement = db.compileStatement(sql.toString());
+    }
+    try {
+      bindValues(statement, keyColumns, values, 1);
+      return statement.executeUpdateDelete();
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  /**
+   * 插入或替换数据（INSERT OR REPLACE）
+   *
+   * @param db 数据库
+   * @param values 插入值
+   * @return 插入行ID，失败时返回-1
+   */
+  long insertOrReplace(@NonNull SQLiteDatabase db, @Nullable ContentValues values) {
+    String[] columns = getSortedColumns(values);
+    String key = KEY_REPLACE + TextUtils.join(",", columns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      statement = db.compileStatement(buildInsertSql("INSERT OR REPLACE INTO ", columns));
+    }
+    try {
+      bindValues(statement, columns, values, 1);
+      return statement.executeInsert();
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  /**
+   * 按唯一键查询行ID
+   *
+   * @param db 数据库
+   * @param keyColumns 唯一键列
+   * @param values 数据（需包含唯一键列）
+   * @return 行ID，不存在时返回-1
+   */
+  long queryIdByKey(@NonNull SQLiteDatabase db, @NonNull String[] keyColumns, @NonNull ContentValues values) {
+    String key = KEY_LOOKUP + TextUtils.join(",", keyColumns);
+    SQLiteStatement statement = acquire(db, key);
+
+    if (statement == null) {
+      statement = db.compileStatement(buildLookupSql(keyColumns));
+    }
+    try {
+      bindValues(statement, keyColumns, values, 1);
+      return statement.simpleQueryForLong();
+    } catch (SQLiteDoneException e) {
+      return -1L;
+    } finally {
+      statement.clearBindings();
+      release(db, key, statement);
+    }
+  }
+
+  private synchronized SQLiteStatement acquire(@NonNull SQLiteDatabase db, @NonNull String key) {
+    if (database != db) {
+      clear();
+      database = db;
+    }
+    return statementMap.remove(key);
+  }
+
+  private void release(@NonNull SQLiteDatabase db, @NonNull String key, @NonNull SQLiteStatement statement) {
+    synchronized (this) {
+      if (database == db && !statementMap.containsKey(key)) {
+        statementMap.put(key, statement);
+        return;
+      }
+    }
+    statement.close();
+  }
+
+  private String buildInsertSql(@NonNull String command, @NonNull String[] columns) {
+    StringBuilder sql = new StringBuilder(64);
+    sql.append(command).append(tableName).append(" (");
+
+    if (columns.length == 0) {
+      sql.append(hackColumn).append(") VALUES (NULL)");
+      return sql.toString();
+    }
+    for (int i = 0; i < columns.length; ++i) {
+      sql.append(i > 0 ? "," : "").append(columns[i]);
+    }
+    sql.append(") VALUES (");
+
+    for (int i = 0; i < columns.length; ++i) {
+      sql.append(i > 0 ? ",?" : "?");
+    }
+    sql.append(')');
+    return sql.toString();
+  }
+
+  private String buildUpdateSql(@NonNull String[] columns) {
+    StringBuilder sql = new StringBuilder(64);
+    sql.append("UPDATE ").append(tableName).append(" SET ");
+
+    for (int i = 0; i < columns.length; ++i) {
+      sql.append(i > 0 ? "," : "").append(columns[i]).append("=?");
+    }
+    sql.append(" WHERE _id=?");
+    return sql.toString();
+  }
+
+  private String buildLookupSql(@NonNull String[] keyColumns) {
+    StringBuilder sql = new StringBuilder(64);
+    sql.append("SELECT _id FROM ").append(tableName);
+    appendKeyCondition(sql, keyColumns);
+    sql.append(" LIMIT 1");
+    return sql.toString();
+  }
+
+  private static void appendKeyCondition(@NonNull StringBuilder sql, @NonNull String[] keyColumns) {
+    sql.append(" WHERE ");
+
+    for (int i = 0; i < keyColumns.length; ++i) {
+      sql.append(i > 0 ? " AND " : "").append(keyColumns[i]).append("=?");
+    }
+  }
+
+  private static void bindValues(@NonNull SQLiteStatement statement, @NonNull String[] columns, @Nullable ContentValues values, int startIndex) {
+    if (values == null) {
+      return;
+    }
+    for (int i = 0; i < columns.length; ++i) {
+      DatabaseUtils.bindObjectToProgram(statement, startIndex + i, values.get(columns[i]));
+    }
+  }
+
+  @NonNull
+  private static String[] getSortedColumns(@Nullable ContentValues values) {
+    if (values == null || values.size() == 0) {
+      return new String[0];
+    }
+    String[] columns = values.keySet().toArray(new String[values.size()]);
+    Arrays.sort(columns);
+    return columns;
+  }
+}
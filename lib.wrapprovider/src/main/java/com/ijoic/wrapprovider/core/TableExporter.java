@@ -0,0 +1,347 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Base64;
+import android.util.Log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 数据表-导出器
+ *
+ * <p>按"_id"分块查询数据表，逐块编码写入管道。内存占用与数据表大小无关，
+ * 读取端消费过慢时写入阻塞于管道，形成背压。</p>
+ *
+ * <p>导出不是一致性快照：各分块分别查询，不在同一读事务中，以免读取端停顿时长期占用连接并阻塞写入（非WAL模式下）。
+ * 每行至多导出一次，导出期间插入的行（"_id"大于当前位置时）、更新及删除可能反映也可能不反映在结果中。</p>
+ *
+ * <p>二进制格式：列数（int），各列名（UTF-8字节数int + 字节）；
+ * 每行以字节1开始，随后各列为类型字节（{@link Cursor#FIELD_TYPE_NULL}等）及对应值；以字节0结束。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class TableExporter {
+
+  /**
+   * 导出格式查询参数
+   */
+  public static final String QUERY_PARAMETER_FORMAT = "format";
+
+  /**
+   * CSV格式（默认）
+   */
+  public static final String FORMAT_CSV = "csv";
+
+  /**
+   * 二进制格式
+   */
+  public static final String FORMAT_BINARY = "binary";
+
+  /**
+   * CSV格式MIME类型
+   */
+  public static final String MIME_TYPE_CSV = "text/csv";
+
+  /**
+   * 二进制格式MIME类型
+   */
+  public static final String MIME_TYPE_BINARY = "application/octet-stream";
+
+  private static final String TAG = "TableExporter";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int CHUNK_SIZE = 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static ExecutorService executor;
+
+  private final SQLiteDatabase db;
+  private final String chunkSql;
+  private final boolean binary;
+
+  /**
+   * 构造函数
+   *
+   * @param db 数据库
+   * @param tableName 数据表名称
+   * @param columns 导出列，为空时导出全部列
+   * @param format 导出格式
+   */
+  TableExporter(@NonNull SQLiteDatabase db, @NonNull String tableName, @Nullable String[] columns, @Nullable String format) {
+    this.db = db;
+    this.chunkSql = buildChunkSql(tableName, columns);
+    this.binary = FORMAT_BINARY.equals(format);
+  }
+
+  /**
+   * 获取导出格式对应的MIME类型
+   *
+   * @param format 导出格式
+   * @return MIME类型
+   */
+  @NonNull
+  static String getMimeType(@Nullable String format) {
+    return FORMAT_BINARY.equals(format) ? MIME_TYPE_BINARY : MIME_TYPE_CSV;
+  }
+
+  /**
+   * 创建导出管道
+   *
+   * <p>API 19及以上创建可靠管道，导出失败时读取端收到错误而非正常结束，避免将截断的数据视为完整导出。</p>
+   *
+   * @return 管道读取端及写入端
+   * @throws IOException 创建失败
+   */
+  @NonNull
+  static ParcelFileDescriptor[] createPipe() throws IOException {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      return ParcelFileDescriptor.createReliablePipe();
+    }
+    return ParcelFileDescriptor.createPipe();
+  }
+
+  /**
+   * 在后台线程开始导出
+   *
+   * <p>导出任务由共享线程池执行，空闲线程在超时后回收。</p>
+   *
+   * @param output 管道写入端
+   * @return 导出任务，完成时写入端已关闭
+   */
+  @NonNull
+  Future<?> start(@NonNull final ParcelFileDescriptor output) {
+    return getExecutor().submit(new Runnable() {
+      @Override
+      public void run() {
+        exportTo(output);
+      }
+    });
+  }
+
+  @NonNull
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+          Thread thread = new Thread(r, "provider-export");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return executor;
+  }
+
+  private void exportTo(@NonNull ParcelFileDescriptor output) {
+    String error = null;
+
+    try {
+      export(new FileOutputStream(output.getFileDescriptor()));
+
+    } catch (IOException e) {
+      // reader closed the pipe.
+      Log.d(TAG, "export aborted: " + e.getMessage());
+      error = "export aborted: " + e.getMessage();
+
+    } catch (RuntimeException e) {
+      Log.w(TAG, "export failed", e);
+      error = "export failed: " + e;
+
+    } finally {
+      closeOutput(output, error);
+    }
+  }
+
+  /**
+   * 关闭管道写入端
+   *
+   * <p>导出失败时，API 19及以上以错误关闭，读取端读取时抛出异常；更低版本无法传递错误，读取端将看到正常结束。</p>
+   */
+  private static void closeOutput(@NonNull ParcelFileDescriptor output, @Nullable String error) {
+    try {
+      if (error != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+        output.closeWithError(error);
+      } else {
+        output.close();
+      }
+    } catch (IOException e) {
+      // ignore.
+    }
+  }
+
+  /**
+   * 导出至输出流
+   *
+   * <p>写入完成后刷新输出流，不关闭输出流。</p>
+   *
+   * @param output 输出流
+   * @throws IOException 写入失败
+   */
+  void export(@NonNull OutputStream output) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+    long lastId = Long.MIN_VALUE;
+    boolean headerWritten = false;
+
+    while (true) {
+      Cursor c = db.rawQuery(chunkSql, new String[] {String.valueOf(lastId)});
+
+      try {
+        if (!headerWritten) {
+          writeHeader(out, c.getColumnNames());
+          headerWritten = true;
+        }
+        int idIndex = c.getColumnIndexOrThrow("_id");
+        int rowCount = 0;
+
+        while (c.moveToNext()) {
+          writeRow(out, c);
+          lastId = c.getLong(idIndex);
+          ++rowCount;
+        }
+        if (rowCount < CHUNK_SIZE) {
+          break;
+        }
+      } finally {
+        c.close();
+      }
+    }
+    if (binary) {
+      out.writeByte(0);
+    }
+    out.flush();
+  }
+
+  private void writeHeader(@NonNull DataOutputStream out, @NonNull String[] columnNames) throws IOException {
+    if (binary) {
+      out.writeInt(columnNames.length);
+
+      for (String name : columnNames) {
+        writeBytes(out, name.getBytes(UTF_8));
+      }
+      return;
+    }
+    for (int i = 0; i < columnNames.length; ++i) {
+      if (i > 0) {
+        out.write(',');
+      }
+      writeCsvText(out, columnNames[i]);
+    }
+    out.write('\n');
+  }
+
+  private void writeRow(@NonNull DataOutputStream out, @NonNull Cursor c) throws IOException {
+    int columnCount = c.getColumnCount();
+
+    if (binary) {
+      out.writeByte(1);
+
+      for (int i = 0; i < columnCount; ++i) {
+        int type = c.getType(i);
+        out.writeByte(type);
+
+        switch (type) {
+          case Cursor.FIELD_TYPE_INTEGER:
+            out.writeLong(c.getLong(i));
+            break;
+          case Cursor.FIELD_TYPE_FLOAT:
+            out.writeDouble(c.getDouble(i));
+            break;
+          case Cursor.FIELD_TYPE_STRING:
+            writeBytes(out, c.getString(i).getBytes(UTF_8));
+            break;
+          case Cursor.FIELD_TYPE_BLOB:
+            writeBytes(out, c.getBlob(i));
+            break;
+          default:
+            break;
+        }
+      }
+      return;
+    }
+    for (int i = 0; i < columnCount; ++i) {
+      if (i > 0) {
+        out.write(',');
+      }
+      switch (c.getType(i)) {
+        case Cursor.FIELD_TYPE_NULL:
+          break;
+        case Cursor.FIELD_TYPE_INTEGER:
+          out.write(String.valueOf(c.getLong(i)).getBytes(UTF_8));
+          break;
+        case Cursor.FIELD_TYPE_FLOAT:
+          out.write(String.valueOf(c.getDouble(i)).getBytes(UTF_8));
+          break;
+        case Cursor.FIELD_TYPE_BLOB:
+          out.write(Base64.encode(c.getBlob(i), Base64.NO_WRAP));
+          break;
+        default:
+          writeCsvText(out, c.getString(i));
+          break;
+      }
+    }
+    out.write('\n');
+  }
+
+  private static void writeBytes(@NonNull DataOutputStream out, @NonNull byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static void writeCsvText(@NonNull OutputStream out, @NonNull String text) throws IOException {
+    boolean quote = false;
+
+    for (int i = 0, length = text.length(); i < length; ++i) {
+      char ch = text.charAt(i);
+
+      if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') {
+        quote = true;
+        break;
+      }
+    }
+    if (!quote) {
+      out.write(text.getBytes(UTF_8));
+      return;
+    }
+    out.write('"');
+    out.write(text.replace("\"", "\"\"").getBytes(UTF_8));
+    out.write('"');
+  }
+
+  @NonNull
+  private static String buildChunkSql(@NonNull String tableName, @Nullable String[] columns) {
+    StringBuilder sql = new StringBuilder(128);
+    sql.append("SELECT ");
+
+    if (columns == null || columns.length == 0) {
+      sql.append('*');
+    } else {
+      boolean hasId = false;
+
+      for (int i = 0; i < columns.length; ++i) {
+        sql.append(i > 0 ? "," : "").append(columns[i]);
+        hasId |= "_id".equals(columns[i]);
+      }
+      if (!hasId) {
+        sql.append(",_id");
+      }
+    }
+    sql.append(" FROM ").append(tableName).append(" WHERE _id>? ORDER BY _id LIMIT ").append(CHUNK_SIZE);
+    return sql.toString();
+  }
+}
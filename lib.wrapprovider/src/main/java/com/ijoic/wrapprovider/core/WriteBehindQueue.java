@@ -0,0 +1,327 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 延迟写入-队列
+ *
+ * <p>插入数据进入有界内存队列后立即返回，由单个写入线程按数量或时间间隔分批写入。
+ * 队列已满时按溢出策略处理：阻塞等待、丢弃或由调用方直接写入。</p>
+ *
+ * <p>写入线程因异常退出时，正在写入的一批计为失败，下次加入队列或写入屏障时重新启动写入线程。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public final class WriteBehindQueue {
+
+  private static final String TAG = "WriteBehindQueue";
+
+  private final String name;
+  private final int batchSize;
+  private final long flushIntervalMillis;
+  private final int overflowPolicy;
+  private final Writer writer;
+
+  private final BlockingQueue<ContentValues> queue;
+  private final Object lock = new Object();
+  private Thread flushThread;
+  private boolean flushRequested;
+
+  private long enqueuedCount;
+  private long processedCount;
+  private long writtenCount;
+  private long failedCount;
+  private long droppedCount;
+  private long callerRunsCount;
+
+  /**
+   * 批量写入器
+   */
+  interface Writer {
+    /**
+     * 在同一事务中写入一批数据
+     *
+     * @param batch 数据列表
+     */
+    void writeBatch(@NonNull List<ContentValues> batch);
+
+    /**
+     * 写入单条数据
+     *
+     * @param values 数据
+     */
+    void writeRow(@NonNull ContentValues values);
+  }
+
+  /**
+   * 构造函数
+   *
+   * @param name 队列名称
+   * @param capacity 队列容量
+   * @param batchSize 每批最大行数
+   * @param flushIntervalMillis 最长写入间隔（毫秒）
+   * @param overflowPolicy 溢出策略
+   * @param writer 批量写入器
+   */
+  WriteBehindQueue(@NonNull String name, int capacity, int batchSize, long flushIntervalMillis, int overflowPolicy, @NonNull Writer writer) {
+    this.name = name;
+    this.batchSize = Math.max(batchSize, 1);
+    this.flushIntervalMillis = Math.max(flushIntervalMillis, 0L);
+    this.overflowPolicy = overflowPolicy;
+    this.writer = writer;
+    this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+  }
+
+  /**
+   * 加入队列
+   *
+   * @param values 插入值
+   * @return 是否已加入队列，返回false时数据已被丢弃或需由调用方直接写入
+   */
+  boolean offer(@NonNull ContentValues values) {
+    ensureFlushThread();
+    ContentValues item = new ContentValues(values);
+
+    synchronized (lock) {
+      if (queue.offer(item)) {
+        ++enqueuedCount;
+        return true;
+      }
+    }
+
+    switch (overflowPolicy) {
+      case TableConfig.WRITE_BEHIND_OVERFLOW_DROP:
+        synchronized (lock) {
+          ++droppedCount;
+        }
+        return false;
+
+      case TableConfig.WRITE_BEHIND_OVERFLOW_CALLER_RUNS:
+        synchronized (lock) {
+          ++callerRunsCount;
+        }
+        return false;
+
+      default:
+        // count before put, so the flusher never processes an item flush() has not counted.
+        synchronized (lock) {
+          ++enqueuedCount;
+        }
+        try {
+          queue.put(item);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          synchronized (lock) {
+            --enqueuedCount;
+            ++droppedCount;
+            lock.notifyAll();
+          }
+          return false;
+        }
+        return true;
+    }
+  }
+
+  /**
+   * 判断溢出时是否由调用方直接写入
+   *
+   * @return 是否由调用方直接写入
+   */
+  boolean isCallerRuns() {
+    return overflowPolicy == TableConfig.WRITE_BEHIND_OVERFLOW_CALLER_RUNS;
+  }
+
+  /**
+   * 写入屏障
+   *
+   * <p>阻塞直至调用前已加入队列的数据全部处理完毕，包括溢出时仍在阻塞等待加入队列的数据。</p>
+   */
+  public void flush() {
+    synchronized (lock) {
+      long target = enqueuedCount;
+      flushRequested = true;
+      lock.notifyAll();
+
+      // a blocked put interrupted after this point gives back its count.
+      while (processedCount < Math.min(target, enqueuedCount)) {
+        ensureFlushThread();
+
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private void ensureFlushThread() {
+    synchronized (lock) {
+      if (flushThread != null) {
+        return;
+      }
+      flushThread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          runFlushLoop();
+        }
+      }, "provider-write-behind-" + name);
+      flushThread.setDaemon(true);
+      flushThread.start();
+    }
+  }
+
+  private void runFlushLoop() {
+    try {
+      runFlushBatches();
+    } finally {
+      synchronized (lock) {
+        if (flushThread == Thread.currentThread()) {
+          flushThread = null;
+        }
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private void runFlushBatches() {
+    List<ContentValues> batch = new ArrayList<>(batchSize);
+
+    while (true) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+      long deadline = System.currentTimeMillis() + flushIntervalMillis;
+      queue.drainTo(batch, batchSize - batch.size());
+
+      synchronized (lock) {
+        while (batch.size() < batchSize && !flushRequested) {
+          long remaining = deadline - System.currentTimeMillis();
+
+          if (remaining <= 0) {
+            break;
+          }
+          try {
+            lock.wait(remaining);
+          } catch (InterruptedException e) {
+            break;
+          }
+          queue.drainTo(batch, batchSize - batch.size());
+        }
+        queue.drainTo(batch, batchSize - batch.size());
+
+        if (queue.isEmpty()) {
+          flushRequested = false;
+        }
+      }
+      writeBatch(batch);
+      batch.clear();
+    }
+  }
+
+  private void writeBatch(@NonNull List<ContentValues> batch) {
+    int written = 0;
+
+    try {
+      writer.writeBatch(batch);
+      written = batch.size();
+
+    } catch (RuntimeException e) {
+      Log.w(TAG, "write batch failed, retry by row: " + name, e);
+
+      for (ContentValues values : batch) {
+        try {
+          writer.writeRow(values);
+          ++written;
+        } catch (RuntimeException rowError) {
+          // counted as failed.
+        }
+      }
+    } finally {
+      // rows not written when an error escapes are counted as failed, so that flush() never waits for them.
+      synchronized (lock) {
+        writtenCount += written;
+        failedCount += batch.size() - written;
+        processedCount += batch.size();
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * 获取当前队列长度
+   *
+   * @return 队列长度
+   */
+  public int getPendingCount() {
+    return queue.size();
+  }
+
+  /**
+   * 获取已加入队列的数据数
+   *
+   * @return 已加入队列的数据数
+   */
+  public long getEnqueuedCount() {
+    synchronized (lock) {
+      return enqueuedCount;
+    }
+  }
+
+  /**
+   * 获取已写入数据库的数据数
+   *
+   * @return 已写入的数据数
+   */
+  public long getWrittenCount() {
+    synchronized (lock) {
+      return writtenCount;
+    }
+  }
+
+  /**
+   * 获取写入失败的数据数
+   *
+   * @return 写入失败的数据数
+   */
+  public long getFailedCount() {
+    synchronized (lock) {
+      return failedCount;
+    }
+  }
+
+  /**
+   * 获取溢出丢弃的数据数
+   *
+   * @return 丢弃的数据数
+   */
+  public long getDroppedCount() {
+    synchronized (lock) {
+      return droppedCount;
+    }
+  }
+
+  /**
+   * 获取溢出时由调用方直接写入的数据数
+   *
+   * @return 调用方直接写入的数据数
+   */
+  public long getCallerRunsCount() {
+    synchronized (lock) {
+      return callerRunsCount;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 变更日志-测试
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class ChangeLogTest {
+
+  @After
+  public void tearDown() {
+    NoteProvider.resetConfig();
+  }
+
+  @Test
+  public void sinceReturnsLaterChangesInOrder() {
+    enableChangeLog(0);
+    NoteProvider provider = NoteProvider.create();
+    long first = insert(provider, "a");
+    long second = insert(provider, "b");
+    ContentValues values = new ContentValues();
+    values.put("title", "a2");
+    provider.update(ContentUris.withAppendedId(NoteHelper.CONTENT_URI, first), values, null, null);
+    provider.delete(ContentUris.withAppendedId(NoteHelper.CONTENT_URI, second), null, null);
+
+    List<long[]> changes = queryChanges(provider, 0);
+    assertEquals(4, changes.size());
+    assertChange(changes.get(0), 1, first, ChangeLog.OP_INSERT);
+    assertChange(changes.get(1), 2, second, ChangeLog.OP_INSERT);
+    assertChange(changes.get(2), 3, first, ChangeLog.OP_UPDATE);
+    assertChange(changes.get(3), 4, second, ChangeLog.OP_DELETE);
+
+    changes = queryChanges(provider, 2);
+    assertEquals(2, changes.size());
+    assertEquals(3, changes.get(0)[0]);
+  }
+
+  @Test
+  public void compactionBoundsLogAndRecordsReset() {
+    enableChangeLog(4);
+    NoteProvider provider = NoteProvider.create();
+
+    for (int i = 0; i < 10; ++i) {
+      insert(provider, "row" + i);
+    }
+    List<long[]> changes = queryChanges(provider, 0);
+    assertEquals(4, changes.size());
+    assertEquals(ChangeLog.OP_RESET, changes.get(0)[2]);
+    assertEquals(10, changes.get(changes.size() - 1)[0]);
+
+    // a client behind the reset point reads the reset row first and resyncs.
+    List<long[]> stale = queryChanges(provider, 2);
+    assertEquals(ChangeLog.OP_RESET, stale.get(0)[2]);
+
+    Set<Long> rowIds = new HashSet<>();
+
+    for (int i = 1; i < changes.size(); ++i) {
+      assertTrue(rowIds.add(changes.get(i)[1]));
+    }
+  }
+
+  @Test
+  public void destructiveUpgradeContinuesSequence() {
+    enableChangeLog(4);
+    NoteProvider provider = NoteProvider.create();
+
+    for (int i = 0; i < 3; ++i) {
+      insert(provider, "row" + i);
+    }
+    provider.closeDatabase();
+
+    NoteProvider.databaseVersion = 2;
+    NoteProvider upgraded = NoteProvider.create();
+    List<long[]> changes = queryChanges(upgraded, 3);
+    assertEquals(1, changes.size());
+    assertChange(changes.get(0), 4, 0, ChangeLog.OP_RESET);
+
+    for (int i = 0; i < 10; ++i) {
+      insert(upgraded, "new" + i);
+    }
+    changes = queryChanges(upgraded, 0);
+    assertEquals(4, changes.size());
+    assertEquals(14, changes.get(changes.size() - 1)[0]);
+    assertEquals(ChangeLog.OP_INSERT, changes.get(changes.size() - 1)[2]);
+  }
+
+  private static void enableChangeLog(final int maxSize) {
+    NoteHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitTableConfig(@NonNull TableConfig tableConfig) {
+        tableConfig.changeLogEnabled = true;
+        tableConfig.changeLogMaxSize = maxSize;
+      }
+    };
+  }
+
+  private static long insert(NoteProvider provider, String title) {
+    ContentValues values = new ContentValues();
+    values.put("title", title);
+    return ContentUris.parseId(provider.insert(NoteHelper.CONTENT_URI, values));
+  }
+
+  /**
+   * 查询变更
+   *
+   * @return 变更列表，每项依次为序号、行ID及操作
+   */
+  private static List<long[]> queryChanges(NoteProvider provider, long since) {
+    Uri uri = NoteHelper.CONTENT_URI.buildUpon()
+      .appendPath(ChangeLog.PATH_CHANGES)
+      .appendQueryParameter(ChangeLog.QUERY_PARAMETER_SINCE, String.valueOf(since))
+      .build();
+    Cursor c = provider.query(uri, null, null, null, null);
+    List<long[]> changes = new ArrayList<>();
+
+    try {
+      while (c.moveToNext()) {
+        changes.add(new long[] {
+          c.getLong(c.getColumnIndexOrThrow(ChangeLog.COLUMN_SEQUENCE)),
+          c.getLong(c.getColumnIndexOrThrow(ChangeLog.COLUMN_ROW_ID)),
+          c.getLong(c.getColumnIndexOrThrow(ChangeLog.COLUMN_OP))
+        });
+      }
+    } finally {
+      c.close();
+    }
+    return changes;
+  }
+
+  private static void assertChange(long[] change, long sequence, long rowId, int op) {
+    assertEquals(sequence, change[0]);
+    assertEquals(rowId, change[1]);
+    assertEquals(op, change[2]);
+  }
+}
@@ -0,0 +1,78 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.UriMatcher;
+import android.net.Uri;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 快速URI匹配器-测试
+ *
+ * <p>与{@link UriMatcher}注册相同的模式，逐个比较匹配结果。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class FastUriMatcherTest {
+
+  private static final String AUTHORITY = "com.ijoic.wrapprovider.test";
+
+  private static final String[] PATTERNS = {
+    "notes",
+    "notes/#",
+    "notes/_count",
+    "notes/_export",
+    "notes/12",
+    "tags/_changes",
+    "tags/#"
+  };
+
+  private static final String[] PATHS = {
+    "/notes",
+    "/notes/",
+    "/notes/5",
+    "/notes/5/",
+    "/notes//5",
+    "//notes",
+    "/notes/12",
+    "/notes/_count",
+    "/notes/_count/",
+    "/notes/5x",
+    "/notes/5/6",
+    "/notes%2F5",
+    "/notes%2F_count",
+    "/no%74es",
+    "/notes/%35",
+    "/notes/%2F",
+    "/tags/_changes",
+    "/tags/007",
+    "/tags",
+    "/other",
+    "/",
+    ""
+  };
+
+  @Test
+  public void matchesLikeUriMatcher() {
+    UriMatcher expected = new UriMatcher(UriMatcher.NO_MATCH);
+    FastUriMatcher actual = new FastUriMatcher(UriMatcher.NO_MATCH);
+
+    for (int i = 0; i < PATTERNS.length; ++i) {
+      expected.addURI(AUTHORITY, PATTERNS[i], i);
+      actual.addURI(AUTHORITY, PATTERNS[i], i);
+    }
+    for (String authority : new String[] {AUTHORITY, "other.authority"}) {
+      for (String path : PATHS) {
+        Uri uri = Uri.parse("content://" + authority + path);
+        assertEquals(uri.toString(), expected.match(uri), actual.match(uri));
+      }
+    }
+  }
+}
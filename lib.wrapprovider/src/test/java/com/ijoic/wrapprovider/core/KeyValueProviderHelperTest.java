@@ -0,0 +1,135 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 键值数据库提供器-帮助器-测试
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class KeyValueProviderHelperTest {
+
+  /**
+   * 写入间隔远大于测试耗时，已排队的写入仅在显式等待时落库
+   */
+  private static final long LONG_FLUSH_INTERVAL_MILLIS = 60000L;
+
+  @After
+  public void tearDown() {
+    SettingsProvider.resetConfig();
+  }
+
+  @Test
+  public void putAndGetByCall() {
+    SettingsProvider provider = SettingsProvider.create();
+
+    assertEquals(1, put(provider, "a", "1"));
+    assertEquals(0, put(provider, "a", "1"));
+    assertEquals("1", get(provider, "a"));
+    assertFalse(getResult(provider, "missing").containsKey(KeyValueProviderHelper.EXTRA_VALUE));
+  }
+
+  @Test
+  public void nullValueDeletesKey() {
+    SettingsProvider provider = SettingsProvider.create();
+    put(provider, "a", "1");
+    put(provider, "b", "2");
+
+    assertEquals(1, put(provider, "a", null));
+    assertFalse(getResult(provider, "a").containsKey(KeyValueProviderHelper.EXTRA_VALUE));
+    assertEquals(Arrays.asList("b=2"), queryEntries(provider));
+  }
+
+  @Test
+  public void queryWaitsForQueuedWrites() {
+    SettingsProvider.flushIntervalMillis = LONG_FLUSH_INTERVAL_MILLIS;
+    SettingsProvider provider = SettingsProvider.create();
+    put(provider, "a", "1");
+    put(provider, "b", "2");
+
+    assertEquals(Arrays.asList("a=1", "b=2"), queryEntries(provider));
+  }
+
+  @Test
+  public void batchWritesLastValuePerKey() {
+    SettingsProvider.flushIntervalMillis = LONG_FLUSH_INTERVAL_MILLIS;
+    SettingsProvider.changeLogEnabled = true;
+    SettingsProvider provider = SettingsProvider.create();
+    put(provider, "a", "1");
+    put(provider, "a", "2");
+    put(provider, "a", "3");
+
+    assertEquals(Arrays.asList("a=3"), queryEntries(provider));
+
+    // the three puts share one batch, which writes the key once.
+    Uri changesUri = SettingsProvider.CONTENT_URI.buildUpon()
+      .appendPath(ChangeLog.PATH_CHANGES)
+      .appendQueryParameter(ChangeLog.QUERY_PARAMETER_SINCE, "0")
+      .build();
+    Cursor c = provider.query(changesUri, null, null, null, null);
+
+    try {
+      assertEquals(1, c.getCount());
+      c.moveToFirst();
+      assertEquals(ChangeLog.OP_INSERT, c.getInt(c.getColumnIndexOrThrow(ChangeLog.COLUMN_OP)));
+    } finally {
+      c.close();
+    }
+  }
+
+  private static int put(SettingsProvider provider, String key, String value) {
+    Bundle extras = new Bundle();
+    extras.putString(KeyValueProviderHelper.EXTRA_KEY, key);
+    extras.putString(KeyValueProviderHelper.EXTRA_VALUE, value);
+    Bundle result = provider.call(KeyValueProviderHelper.METHOD_PUT, SettingsProvider.CONTENT_URI.toString(), extras);
+    return result.getInt(BaseProviderHelper.EXTRA_COUNT);
+  }
+
+  private static String get(SettingsProvider provider, String key) {
+    return getResult(provider, key).getString(KeyValueProviderHelper.EXTRA_VALUE);
+  }
+
+  private static Bundle getResult(SettingsProvider provider, String key) {
+    Bundle extras = new Bundle();
+    extras.putString(KeyValueProviderHelper.EXTRA_KEY, key);
+    return provider.call(KeyValueProviderHelper.METHOD_GET, SettingsProvider.CONTENT_URI.toString(), extras);
+  }
+
+  /**
+   * 通过Cursor查询全部键值
+   *
+   * @return 键值列表，每项为"键=值"
+   */
+  private static List<String> queryEntries(SettingsProvider provider) {
+    Cursor c = provider.query(SettingsProvider.CONTENT_URI,
+      new String[] {KeyValueProviderHelper.COLUMN_NAME, KeyValueProviderHelper.COLUMN_VALUE}, null, null, KeyValueProviderHelper.COLUMN_NAME + " ASC");
+    List<String> entries = new ArrayList<>();
+
+    try {
+      while (c.moveToNext()) {
+        entries.add(c.getString(0) + "=" + c.getString(1));
+      }
+    } finally {
+      c.close();
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,210 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 键集分页-测试
+ *
+ * <p>按"rank"列（无类型）分页，逐页拼接的结果须与相同排序的完整查询一致，覆盖NULL值及整数、浮点数、文本混合的分页键。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class KeysetPageTest {
+
+  private static final int PAGE_SIZE = 2;
+
+  @After
+  public void tearDown() {
+    NoteProvider.resetConfig();
+  }
+
+  @Test
+  public void ascendingPagesIncludeNulls() {
+    setSortOrder("rank ASC", null);
+    NoteProvider provider = NoteProvider.create();
+    insertRanks(provider);
+
+    assertEquals(queryIds(provider, "rank ASC, _id ASC"), queryPagedIds(provider, null));
+    assertEquals(queryIds(provider, "rank ASC, _id ASC"), queryPagedIds(provider, new String[] {"title"}));
+  }
+
+  @Test
+  public void descendingPagesIncludeNulls() {
+    setSortOrder("rank DESC", null);
+    NoteProvider provider = NoteProvider.create();
+    insertRanks(provider);
+
+    assertEquals(queryIds(provider, "rank DESC, _id DESC"), queryPagedIds(provider, null));
+    assertEquals(queryIds(provider, "rank DESC, _id DESC"), queryPagedIds(provider, new String[] {"title"}));
+  }
+
+  @Test
+  public void typedTokenComparesNumerically() {
+    setSortOrder("rank ASC", null);
+    NoteProvider provider = NoteProvider.create();
+    insertNote(provider, 10);
+    long nineId = insertNote(provider, 9);
+    long realId = insertNote(provider, 9.5);
+
+    Cursor c = provider.query(pageUri(1, null), null, null, null, null);
+    String token;
+
+    try {
+      token = c.getExtras().getString(KeysetPage.EXTRA_NEXT_PAGE_TOKEN);
+    } finally {
+      c.close();
+    }
+    assertEquals(nineId + ",i9", token);
+
+    // a text bound 9 would sort after every number and end the paging here.
+    List<Long> ids = readIds(provider.query(pageUri(1, token), null, null, null, null));
+    assertEquals(1, ids.size());
+    assertEquals(realId, (long) ids.get(0));
+
+    c = provider.query(pageUri(1, token), null, null, null, null);
+    try {
+      token = c.getExtras().getString(KeysetPage.EXTRA_NEXT_PAGE_TOKEN);
+    } finally {
+      c.close();
+    }
+    assertEquals(realId + ",r9.5", token);
+    assertEquals(1, readIds(provider.query(pageUri(1, token), null, null, null, null)).size());
+  }
+
+  @Test
+  public void missingIdColumnFails() {
+    setSortOrder("rank ASC", new String[] {"title", "rank"});
+    NoteProvider provider = NoteProvider.create();
+    insertNote(provider, 1);
+
+    try {
+      provider.query(pageUri(PAGE_SIZE, null), null, null, null, null);
+      fail("page without _id accepted");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("_id"));
+    }
+  }
+
+  private static void setSortOrder(final String sortOrder, final String[] columns) {
+    NoteHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitTableConfig(@NonNull TableConfig tableConfig) {
+        tableConfig.defaultSortOrder = sortOrder;
+
+        if (columns != null) {
+          tableConfig.columns = columns;
+        }
+      }
+    };
+  }
+
+  /**
+   * 插入混合类型的分页键，含重复值，使同值行跨页
+   */
+  private static void insertRanks(NoteProvider provider) {
+    Object[] ranks = {null, 10, 9, 9.5, null, 10, 9, "x", 2.5, null, 10, "a"};
+
+    for (Object rank : ranks) {
+      insertNote(provider, rank);
+    }
+  }
+
+  private static long insertNote(NoteProvider provider, Object rank) {
+    ContentValues values = new ContentValues();
+    values.put("title", "note");
+
+    if (rank == null) {
+      values.putNull("rank");
+    } else if (rank instanceof Integer) {
+      values.put("rank", (Integer) rank);
+    } else if (rank instanceof Double) {
+      values.put("rank", (Double) rank);
+    } else {
+      values.put("rank", (String) rank);
+    }
+    return ContentUris.parseId(provider.insert(NoteHelper.CONTENT_URI, values));
+  }
+
+  private static Uri pageUri(int limit, String after) {
+    Uri.Builder builder = NoteHelper.CONTENT_URI.buildUpon()
+      .appendQueryParameter(KeysetPage.QUERY_PARAMETER_LIMIT, String.valueOf(limit));
+
+    if (after != null) {
+      builder.appendQueryParameter(KeysetPage.QUERY_PARAMETER_AFTER, after);
+    }
+    return builder.build();
+  }
+
+  private static List<Long> queryIds(NoteProvider provider, String sortOrder) {
+    return readIds(provider.query(NoteHelper.CONTENT_URI, new String[] {"_id"}, null, null, sortOrder));
+  }
+
+  /**
+   * 按下页标识逐页查询
+   *
+   * @return 全部页的行ID
+   */
+  private static List<Long> queryPagedIds(NoteProvider provider, String[] projection) {
+    List<Long> ids = new ArrayList<>();
+    String token = null;
+
+    do {
+      Cursor c = provider.query(pageUri(PAGE_SIZE, token), projection, null, null, null);
+
+      try {
+        int idIndex = c.getColumnIndexOrThrow("_id");
+
+        while (c.moveToNext()) {
+          ids.add(c.getLong(idIndex));
+        }
+        token = c.getExtras().getString(KeysetPage.EXTRA_NEXT_PAGE_TOKEN);
+
+        if (c.getCount() < PAGE_SIZE) {
+          assertNull(token);
+        }
+      } finally {
+        c.close();
+      }
+    } while (token != null);
+
+    return ids;
+  }
+
+  private static List<Long> readIds(Cursor c) {
+    List<Long> ids = new ArrayList<>();
+
+    try {
+      int idIndex = c.getColumnIndexOrThrow("_id");
+
+      while (c.moveToNext()) {
+        ids.add(c.getLong(idIndex));
+      }
+    } finally {
+      c.close();
+    }
+    return ids;
+  }
+}
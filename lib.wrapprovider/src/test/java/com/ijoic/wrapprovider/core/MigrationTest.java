@@ -0,0 +1,167 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 数据库迁移-测试
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class MigrationTest {
+
+  private final List<String> steps = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    NoteProvider.resetConfig();
+    SharedProvider.resetConfig();
+  }
+
+  @Test
+  public void stepsRunInOrder() {
+    NoteProvider provider = NoteProvider.create();
+    insertNote(provider, NoteHelper.CONTENT_URI);
+    provider.closeDatabase();
+
+    setNoteMigrations(false, 2, 3);
+    NoteProvider.databaseVersion = 3;
+    NoteProvider upgraded = NoteProvider.create();
+
+    assertEquals(1, countNotes(upgraded, NoteHelper.CONTENT_URI));
+    assertEquals(Arrays.asList("notes:2", "notes:3"), steps);
+    assertEquals(2, upgraded.getHelper().getMigrationRegistry().getRecords().size());
+  }
+
+  @Test
+  public void skippedVersionIsNotMissing() {
+    NoteProvider provider = NoteProvider.create();
+    insertNote(provider, NoteHelper.CONTENT_URI);
+    provider.closeDatabase();
+
+    NoteHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitMigrations(@NonNull MigrationRegistry registry) {
+        registry.skip(2).add(3, record("notes:3"));
+      }
+    };
+    NoteProvider.databaseVersion = 3;
+    NoteProvider upgraded = NoteProvider.create();
+
+    assertEquals(1, countNotes(upgraded, NoteHelper.CONTENT_URI));
+    assertEquals(Arrays.asList("notes:3"), steps);
+  }
+
+  @Test
+  public void missingStepThrowsWithoutFallback() {
+    NoteProvider provider = NoteProvider.create();
+    insertNote(provider, NoteHelper.CONTENT_URI);
+    provider.closeDatabase();
+
+    setNoteMigrations(false, 3);
+    NoteProvider.databaseVersion = 3;
+    NoteProvider upgraded = NoteProvider.create();
+
+    try {
+      countNotes(upgraded, NoteHelper.CONTENT_URI);
+      fail("missing migration accepted");
+    } catch (IllegalStateException e) {
+      // expected.
+    }
+    assertEquals(0, steps.size());
+  }
+
+  @Test
+  public void missingStepRecreatesSingleTable() {
+    NoteProvider provider = NoteProvider.create();
+    insertNote(provider, NoteHelper.CONTENT_URI);
+    provider.closeDatabase();
+
+    setNoteMigrations(true, 3);
+    NoteProvider.databaseVersion = 3;
+    NoteProvider upgraded = NoteProvider.create();
+
+    assertEquals(0, countNotes(upgraded, NoteHelper.CONTENT_URI));
+    assertEquals(0, steps.size());
+  }
+
+  @Test
+  public void sharedDatabaseSkipsOtherTableVersions() {
+    SharedProvider provider = SharedProvider.create();
+    insertNote(provider, SharedProvider.NOTES_URI);
+    provider.closeDatabase();
+
+    // version 2 belongs to the tags table only.
+    setNoteMigrations(true, 3);
+    TagHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitMigrations(@NonNull MigrationRegistry registry) {
+        registry.add(2, record("tags:2"));
+      }
+    };
+    SharedProvider.databaseVersion = 3;
+    SharedProvider upgraded = SharedProvider.create();
+
+    assertEquals(1, countNotes(upgraded, SharedProvider.NOTES_URI));
+    assertEquals(Arrays.asList("notes:3", "tags:2"), steps);
+  }
+
+  private void setNoteMigrations(final boolean fallbackToDestructive, final int... versions) {
+    NoteHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitMigrations(@NonNull MigrationRegistry registry) {
+        registry.setFallbackToDestructive(fallbackToDestructive);
+
+        for (int version : versions) {
+          registry.add(version, record("notes:" + version));
+        }
+      }
+    };
+  }
+
+  @NonNull
+  private Migration record(@NonNull final String step) {
+    return new Migration() {
+      @Override
+      public void migrate(@NonNull SQLiteDatabase db) {
+        steps.add(step);
+      }
+    };
+  }
+
+  private static void insertNote(ContentProvider provider, Uri uri) {
+    ContentValues values = new ContentValues();
+    values.put("title", "note");
+    provider.insert(uri, values);
+  }
+
+  private static int countNotes(ContentProvider provider, Uri uri) {
+    Cursor c = provider.query(uri, null, null, null, null);
+
+    try {
+      return c.getCount();
+    } finally {
+      c.close();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+/**
+ * 测试-笔记数据表帮助器
+ *
+ * <p>数据表"notes"包含"_id"、"title"（TEXT）、"rank"（无类型）及"body"（TEXT）列。
+ * {@link #onInitTableConfig(TableConfig)}在父类构造函数中调用，因此通过静态字段{@link #setup}调整配置。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class NoteHelper extends BaseProviderHelper {
+
+  static final String TABLE_NAME = "notes";
+  static final Uri CONTENT_URI = Uri.parse("content://" + NoteProvider.AUTHORITY + "/" + TABLE_NAME);
+
+  static volatile Setup setup;
+
+  /**
+   * 配置调整
+   */
+  static class Setup {
+    void onInitTableConfig(@NonNull TableConfig tableConfig) {
+      // do nothing.
+    }
+
+    void onInitMigrations(@NonNull MigrationRegistry registry) {
+      // do nothing.
+    }
+  }
+
+  @Override
+  protected void onInitTableConfig(TableConfig tableConfig) {
+    tableConfig.tableName = TABLE_NAME;
+    tableConfig.itemSet = TABLE_NAME;
+    tableConfig.contentUri = CONTENT_URI;
+    tableConfig.contentType = "vnd.android.cursor.dir/vnd.test.notes";
+    tableConfig.contentItemType = "vnd.android.cursor.item/vnd.test.notes";
+    tableConfig.defaultSortOrder = "_id ASC";
+    tableConfig.hackColumn = "title";
+    tableConfig.columns = new String[] {"_id", "title", "rank", "body"};
+
+    Setup setup = NoteHelper.setup;
+
+    if (setup != null) {
+      setup.onInitTableConfig(tableConfig);
+    }
+  }
+
+  @Override
+  protected void onInitMigrations(@NonNull MigrationRegistry registry) {
+    Setup setup = NoteHelper.setup;
+
+    if (setup != null) {
+      setup.onInitMigrations(registry);
+    }
+  }
+
+  @Override
+  public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+    db.execSQL("CREATE TABLE " + TABLE_NAME + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, rank, body TEXT);");
+  }
+}
@@ -0,0 +1,73 @@
+package com.ijoic.wrapprovider.core;
+
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.BaseContentProvider;
+import com.ijoic.wrapprovider.DatabaseConfig;
+
+import org.robolectric.Robolectric;
+
+/**
+ * 测试-笔记内容提供器
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class NoteProvider extends BaseContentProvider {
+
+  static final String AUTHORITY = "com.ijoic.wrapprovider.test";
+  static final String DATABASE_NAME = "notes.db";
+
+  static volatile int databaseVersion = 1;
+
+  private NoteHelper helper;
+
+  /**
+   * 创建内容提供器
+   *
+   * @return 内容提供器
+   */
+  @NonNull
+  static NoteProvider create() {
+    return Robolectric.buildContentProvider(NoteProvider.class).create(AUTHORITY).get();
+  }
+
+  /**
+   * 恢复默认配置
+   */
+  static void resetConfig() {
+    databaseVersion = 1;
+    NoteHelper.setup = null;
+  }
+
+  @NonNull
+  @Override
+  protected NoteHelper genProviderHelper() {
+    helper = new NoteHelper();
+    return helper;
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = AUTHORITY;
+    databaseConfig.databaseName = DATABASE_NAME;
+    databaseConfig.databaseVersion = databaseVersion;
+  }
+
+  /**
+   * 获取数据表帮助器
+   *
+   * @return 数据表帮助器
+   */
+  @NonNull
+  NoteHelper getHelper() {
+    return helper;
+  }
+
+  /**
+   * 关闭数据库
+   */
+  void closeDatabase() {
+    helper.getDatabaseHelper().close();
+  }
+}
@@ -0,0 +1,135 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 单行查询-测试
+ *
+ * <p>无选择条件的单行查询走直接查询，附加恒真条件时走SQLiteQueryBuilder，两者结果须一致。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class QueryRowTest {
+
+  private static final String TRUE_SELECTION = "_id IS NOT NULL";
+
+  @After
+  public void tearDown() {
+    NoteProvider.resetConfig();
+  }
+
+  @Test
+  public void fastPathMatchesQueryBuilder() {
+    NoteProvider provider = NoteProvider.create();
+    Uri uri = insertNote(provider);
+
+    assertSameRow(provider, uri, null);
+    assertSameRow(provider, uri, new String[] {"body", "_id", "title"});
+    assertSameRow(provider, uri, new String[] {"rank"});
+  }
+
+  @Test
+  public void fastPathMatchesQueryBuilderWithoutColumns() {
+    clearColumns();
+    NoteProvider provider = NoteProvider.create();
+    Uri uri = insertNote(provider);
+
+    assertSameRow(provider, uri, null);
+    assertSameRow(provider, uri, new String[] {"title", "rank"});
+    assertSameRow(provider, uri, new String[] {"title AS t", "length(body) AS n"});
+  }
+
+  @Test
+  public void plainProjectionRequiresColumnNames() {
+    NoteProvider provider = NoteProvider.create();
+    BaseProviderHelper helper = provider.getHelper();
+
+    assertTrue(helper.isPlainProjection(null));
+    assertTrue(helper.isPlainProjection(new String[] {"_id", "title"}));
+    assertFalse(helper.isPlainProjection(new String[] {"unknown"}));
+    assertFalse(helper.isPlainProjection(new String[] {"title", null}));
+  }
+
+  @Test
+  public void plainProjectionRejectsExpressionsWithoutColumns() {
+    clearColumns();
+    NoteProvider provider = NoteProvider.create();
+    BaseProviderHelper helper = provider.getHelper();
+
+    assertTrue(helper.isPlainProjection(new String[] {"anything"}));
+    assertFalse(helper.isPlainProjection(new String[] {"title AS t"}));
+    assertFalse(helper.isPlainProjection(new String[] {"(SELECT name FROM sqlite_master)"}));
+    assertFalse(helper.isPlainProjection(new String[] {"title FROM notes;--"}));
+  }
+
+  private static void clearColumns() {
+    NoteHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitTableConfig(@NonNull TableConfig tableConfig) {
+        tableConfig.columns = null;
+      }
+    };
+  }
+
+  private static Uri insertNote(NoteProvider provider) {
+    ContentValues values = new ContentValues();
+    values.put("title", "note");
+    values.put("rank", 10);
+    values.put("body", "text");
+    provider.insert(NoteHelper.CONTENT_URI, values);
+    values.put("title", "other");
+    return ContentUris.withAppendedId(NoteHelper.CONTENT_URI, ContentUris.parseId(provider.insert(NoteHelper.CONTENT_URI, values)));
+  }
+
+  private static void assertSameRow(NoteProvider provider, Uri uri, String[] projection) {
+    Cursor fast = provider.query(uri, projection, null, null, null);
+    Cursor built = provider.query(uri, projection, TRUE_SELECTION, null, null);
+
+    try {
+      assertArrayEquals(built.getColumnNames(), fast.getColumnNames());
+      assertEquals(readRows(built), readRows(fast));
+      assertEquals(1, fast.getCount());
+    } finally {
+      fast.close();
+      built.close();
+    }
+  }
+
+  private static List<List<String>> readRows(Cursor c) {
+    List<List<String>> rows = new ArrayList<>();
+
+    while (c.moveToNext()) {
+      String[] row = new String[c.getColumnCount()];
+
+      for (int i = 0; i < row.length; ++i) {
+        row[i] = c.getType(i) + ":" + c.getString(i);
+      }
+      rows.add(Arrays.asList(row));
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,72 @@
+package com.ijoic.wrapprovider.core;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.BaseContentProvider;
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.TableConfig;
+
+import org.robolectric.Robolectric;
+
+/**
+ * 测试-键值内容提供器
+ *
+ * <p>数据表"settings"由{@link KeyValueProviderHelper}管理，写入间隔及变更日志通过静态字段调整。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class SettingsProvider extends BaseContentProvider {
+
+  static final String AUTHORITY = "com.ijoic.wrapprovider.test.settings";
+  static final String TABLE_NAME = "settings";
+  static final Uri CONTENT_URI = Uri.parse("content://" + AUTHORITY + "/" + TABLE_NAME);
+
+  static volatile long flushIntervalMillis = 200L;
+  static volatile boolean changeLogEnabled;
+
+  /**
+   * 创建内容提供器
+   *
+   * @return 内容提供器
+   */
+  @NonNull
+  static SettingsProvider create() {
+    return Robolectric.buildContentProvider(SettingsProvider.class).create(AUTHORITY).get();
+  }
+
+  /**
+   * 恢复默认配置
+   */
+  static void resetConfig() {
+    flushIntervalMillis = 200L;
+    changeLogEnabled = false;
+  }
+
+  @NonNull
+  @Override
+  protected KeyValueProviderHelper genProviderHelper() {
+    return new KeyValueProviderHelper() {
+      @Override
+      protected void onInitTableConfig(TableConfig tableConfig) {
+        super.onInitTableConfig(tableConfig);
+        tableConfig.tableName = TABLE_NAME;
+        tableConfig.itemSet = TABLE_NAME;
+        tableConfig.contentUri = CONTENT_URI;
+        tableConfig.contentType = "vnd.android.cursor.dir/vnd.test.settings";
+        tableConfig.contentItemType = "vnd.android.cursor.item/vnd.test.settings";
+        tableConfig.defaultSortOrder = "_id ASC";
+        tableConfig.writeBehindFlushIntervalMillis = flushIntervalMillis;
+        tableConfig.changeLogEnabled = changeLogEnabled;
+      }
+    };
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = AUTHORITY;
+    databaseConfig.databaseName = "settings.db";
+    databaseConfig.databaseVersion = 1;
+  }
+}
@@ -0,0 +1,67 @@
+package com.ijoic.wrapprovider.core;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.DatabaseConfig;
+import com.ijoic.wrapprovider.MultiTableContentProvider;
+
+import org.robolectric.Robolectric;
+
+/**
+ * 测试-共用数据库内容提供器
+ *
+ * <p>{@link NoteHelper}与{@link TagHelper}共用同一数据库。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class SharedProvider extends MultiTableContentProvider {
+
+  static final String AUTHORITY = "com.ijoic.wrapprovider.test.shared";
+  static final String DATABASE_NAME = "shared.db";
+  static final Uri NOTES_URI = Uri.parse("content://" + AUTHORITY + "/" + NoteHelper.TABLE_NAME);
+
+  static volatile int databaseVersion = 1;
+
+  private NoteHelper noteHelper;
+
+  /**
+   * 创建内容提供器
+   *
+   * @return 内容提供器
+   */
+  @NonNull
+  static SharedProvider create() {
+    return Robolectric.buildContentProvider(SharedProvider.class).create(AUTHORITY).get();
+  }
+
+  /**
+   * 恢复默认配置
+   */
+  static void resetConfig() {
+    databaseVersion = 1;
+    TagHelper.setup = null;
+  }
+
+  @NonNull
+  @Override
+  protected BaseProviderHelper[] genProviderHelperList() {
+    noteHelper = new NoteHelper();
+    return new BaseProviderHelper[] {noteHelper, new TagHelper()};
+  }
+
+  @Override
+  protected void initDatabaseConfig(@NonNull DatabaseConfig databaseConfig) {
+    databaseConfig.authority = AUTHORITY;
+    databaseConfig.databaseName = DATABASE_NAME;
+    databaseConfig.databaseVersion = databaseVersion;
+  }
+
+  /**
+   * 关闭数据库
+   */
+  void closeDatabase() {
+    noteHelper.getDatabaseHelper().close();
+  }
+}
@@ -0,0 +1,124 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 数据表导出-堆内存测试
+ *
+ * <p>导出100万行，每输出约8MB采样一次GC后的已用堆内存，校验采样峰值与导出前相比增长不超过固定上限，即内存占用与行数无关。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class TableExporterHeapTest {
+
+  private static final String TABLE_NAME = "export_rows";
+  private static final int ROW_COUNT = 1000000;
+  private static final long SAMPLE_INTERVAL_BYTES = 8L * 1024 * 1024;
+  private static final long MAX_HEAP_GROWTH_BYTES = 16L * 1024 * 1024;
+
+  private File databaseFile;
+  private SQLiteDatabase db;
+
+  @Before
+  public void setUp() throws Exception {
+    databaseFile = new File(RuntimeEnvironment.application.getCacheDir(), "export_heap.db");
+    databaseFile.delete();
+    db = SQLiteDatabase.openOrCreateDatabase(databaseFile, null);
+    db.execSQL("CREATE TABLE " + TABLE_NAME + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, amount INTEGER, ratio REAL)");
+    db.execSQL("INSERT INTO " + TABLE_NAME + " (title, amount, ratio)"
+      + " WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i+1 FROM n WHERE i<" + ROW_COUNT + ")"
+      + " SELECT 'title, \"quoted\" ' || i, i, i / 7.0 FROM n");
+  }
+
+  @After
+  public void tearDown() {
+    db.close();
+    databaseFile.delete();
+  }
+
+  @Test
+  public void exportCsvConstantHeap() throws Exception {
+    assertConstantHeap(TableExporter.FORMAT_CSV);
+  }
+
+  @Test
+  public void exportBinaryConstantHeap() throws Exception {
+    assertConstantHeap(TableExporter.FORMAT_BINARY);
+  }
+
+  private void assertConstantHeap(String format) throws IOException {
+    long baseline = usedHeap();
+    HeapSamplingOutputStream output = new HeapSamplingOutputStream();
+    new TableExporter(db, TABLE_NAME, null, format).export(output);
+    long growth = output.peakHeap - baseline;
+
+    if (TableExporter.FORMAT_CSV.equals(format)) {
+      assertEquals(ROW_COUNT + 1, output.lineCount);
+    }
+    assertTrue("samples " + output.sampleCount, output.sampleCount > 1);
+    assertTrue("heap grew by " + growth + " bytes", growth <= MAX_HEAP_GROWTH_BYTES);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * 丢弃写入内容，统计字节及行数，并定期采样已用堆内存
+   */
+  private static final class HeapSamplingOutputStream extends OutputStream {
+    private long byteCount;
+    private long lineCount;
+    private long nextSample = SAMPLE_INTERVAL_BYTES;
+    private long peakHeap;
+    private int sampleCount;
+
+    @Override
+    public void write(int b) {
+      if (b == '\n') {
+        ++lineCount;
+      }
+      advance(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      for (int i = off; i < off + len; ++i) {
+        if (b[i] == '\n') {
+          ++lineCount;
+        }
+      }
+      advance(len);
+    }
+
+    private void advance(int len) {
+      byteCount += len;
+
+      if (byteCount >= nextSample) {
+        nextSample += SAMPLE_INTERVAL_BYTES;
+        peakHeap = Math.max(peakHeap, usedHeap());
+        ++sampleCount;
+      }
+    }
+  }
+}
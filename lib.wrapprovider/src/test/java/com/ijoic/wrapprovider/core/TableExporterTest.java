@@ -0,0 +1,267 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.ParcelFileDescriptor;
+import android.util.Base64;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 数据表导出-往返测试
+ *
+ * <p>经{@link TableExporter#start(ParcelFileDescriptor)}导出至文件，再按CSV及二进制格式解码，与数据表逐行比较。
+ * 行数超过单个分块，覆盖分块衔接。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class TableExporterTest {
+
+  private static final String TABLE_NAME = "export_rows";
+  private static final String[] COLUMNS = {"_id", "title", "amount", "ratio", "data"};
+  private static final int ROW_COUNT = 2500;
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private File databaseFile;
+  private File outputFile;
+  private SQLiteDatabase db;
+
+  @Before
+  public void setUp() {
+    File dir = RuntimeEnvironment.application.getCacheDir();
+    databaseFile = new File(dir, "export_round_trip.db");
+    outputFile = new File(dir, "export_round_trip.out");
+    databaseFile.delete();
+    db = SQLiteDatabase.openOrCreateDatabase(databaseFile, null);
+    db.execSQL("CREATE TABLE " + TABLE_NAME + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, amount INTEGER, ratio REAL, data BLOB)");
+
+    db.beginTransaction();
+    try {
+      for (int i = 0; i < ROW_COUNT; ++i) {
+        ContentValues values = new ContentValues();
+
+        switch (i % 4) {
+          case 0:
+            values.putNull("title");
+            break;
+          case 1:
+            values.put("title", "a,\"b\"\nc " + i);
+            break;
+          case 2:
+            values.put("title", "笔记 " + i);
+            break;
+          default:
+            values.put("title", "plain " + i);
+            break;
+        }
+        values.put("amount", i % 3 == 0 ? Long.MAX_VALUE - i : -i);
+        values.put("ratio", i / 7.0);
+
+        if (i % 5 == 0) {
+          values.put("data", new byte[] {(byte) i, 0, (byte) 0xff, ','});
+        }
+        db.insert(TABLE_NAME, null, values);
+      }
+      db.setTransactionSuccessful();
+    } finally {
+      db.endTransaction();
+    }
+    // leave a gap in the ids around the first chunk boundary.
+    db.delete(TABLE_NAME, "_id BETWEEN 1020 AND 1030", null);
+  }
+
+  @After
+  public void tearDown() {
+    db.close();
+    databaseFile.delete();
+    outputFile.delete();
+  }
+
+  @Test
+  public void csvRoundTrip() throws Exception {
+    exportToFile(TableExporter.FORMAT_CSV);
+    List<List<String>> records = readCsv();
+
+    assertEquals(Arrays.asList(COLUMNS), records.get(0));
+    assertEquals(expectedCsvRows(), records.subList(1, records.size()));
+  }
+
+  @Test
+  public void binaryRoundTrip() throws Exception {
+    exportToFile(TableExporter.FORMAT_BINARY);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(outputFile)));
+
+    try {
+      int columnCount = in.readInt();
+      String[] names = new String[columnCount];
+
+      for (int i = 0; i < columnCount; ++i) {
+        names[i] = new String(readBytes(in), UTF_8);
+      }
+      assertArrayEquals(COLUMNS, names);
+
+      Cursor c = queryAll();
+      try {
+        while (in.readByte() == 1) {
+          c.moveToNext();
+
+          for (int i = 0; i < columnCount; ++i) {
+            int type = in.readByte();
+            assertEquals(names[i], c.getType(i), type);
+
+            switch (type) {
+              case Cursor.FIELD_TYPE_INTEGER:
+                assertEquals(c.getLong(i), in.readLong());
+                break;
+              case Cursor.FIELD_TYPE_FLOAT:
+                assertEquals(c.getDouble(i), in.readDouble(), 0.0);
+                break;
+              case Cursor.FIELD_TYPE_STRING:
+                assertEquals(c.getString(i), new String(readBytes(in), UTF_8));
+                break;
+              case Cursor.FIELD_TYPE_BLOB:
+                assertArrayEquals(c.getBlob(i), readBytes(in));
+                break;
+              default:
+                break;
+            }
+          }
+        }
+        assertEquals(c.getCount(), c.getPosition() + 1);
+      } finally {
+        c.close();
+      }
+      assertEquals(-1, in.read());
+    } finally {
+      in.close();
+    }
+  }
+
+  private void exportToFile(String format) throws Exception {
+    ParcelFileDescriptor output = ParcelFileDescriptor.open(outputFile,
+      ParcelFileDescriptor.MODE_WRITE_ONLY | ParcelFileDescriptor.MODE_CREATE | ParcelFileDescriptor.MODE_TRUNCATE);
+    new TableExporter(db, TABLE_NAME, null, format).start(output).get(30, TimeUnit.SECONDS);
+  }
+
+  private Cursor queryAll() {
+    return db.rawQuery("SELECT * FROM " + TABLE_NAME + " ORDER BY _id", null);
+  }
+
+  private List<List<String>> expectedCsvRows() {
+    List<List<String>> rows = new ArrayList<>();
+    Cursor c = queryAll();
+
+    try {
+      while (c.moveToNext()) {
+        List<String> row = new ArrayList<>();
+
+        for (int i = 0; i < c.getColumnCount(); ++i) {
+          switch (c.getType(i)) {
+            case Cursor.FIELD_TYPE_NULL:
+              row.add("");
+              break;
+            case Cursor.FIELD_TYPE_INTEGER:
+              row.add(String.valueOf(c.getLong(i)));
+              break;
+            case Cursor.FIELD_TYPE_FLOAT:
+              row.add(String.valueOf(c.getDouble(i)));
+              break;
+            case Cursor.FIELD_TYPE_BLOB:
+              row.add(Base64.encodeToString(c.getBlob(i), Base64.NO_WRAP));
+              break;
+            default:
+              row.add(c.getString(i));
+              break;
+          }
+        }
+        rows.add(row);
+      }
+    } finally {
+      c.close();
+    }
+    return rows;
+  }
+
+  /**
+   * 读取CSV记录
+   *
+   * <p>引号内的逗号、换行及双写引号按RFC 4180解码。</p>
+   */
+  private List<List<String>> readCsv() throws IOException {
+    List<List<String>> records = new ArrayList<>();
+    Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(outputFile), UTF_8));
+
+    try {
+      List<String> record = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      int ch;
+
+      while ((ch = reader.read()) != -1) {
+        if (quoted) {
+          if (ch != '"') {
+            field.append((char) ch);
+            continue;
+          }
+          reader.mark(1);
+
+          if (reader.read() == '"') {
+            field.append('"');
+          } else {
+            reader.reset();
+            quoted = false;
+          }
+        } else if (ch == '"') {
+          quoted = true;
+        } else if (ch == ',') {
+          record.add(field.toString());
+          field.setLength(0);
+        } else if (ch == '\n') {
+          record.add(field.toString());
+          field.setLength(0);
+          records.add(record);
+          record = new ArrayList<>();
+        } else {
+          field.append((char) ch);
+        }
+      }
+      assertEquals(0, record.size() + field.length());
+    } finally {
+      reader.close();
+    }
+    return records;
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,49 @@
+package com.ijoic.wrapprovider.core;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+/**
+ * 测试-标签数据表帮助器
+ *
+ * <p>数据表"tags"包含"_id"及"name"（TEXT）列，与{@link NoteHelper}共用{@link SharedProvider}的数据库。</p>
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+public class TagHelper extends BaseProviderHelper {
+
+  static final String TABLE_NAME = "tags";
+  static final Uri CONTENT_URI = Uri.parse("content://" + SharedProvider.AUTHORITY + "/" + TABLE_NAME);
+
+  static volatile NoteHelper.Setup setup;
+
+  @Override
+  protected void onInitTableConfig(TableConfig tableConfig) {
+    tableConfig.tableName = TABLE_NAME;
+    tableConfig.itemSet = TABLE_NAME;
+    tableConfig.contentUri = CONTENT_URI;
+    tableConfig.contentType = "vnd.android.cursor.dir/vnd.test.tags";
+    tableConfig.contentItemType = "vnd.android.cursor.item/vnd.test.tags";
+    tableConfig.defaultSortOrder = "_id ASC";
+    tableConfig.hackColumn = "name";
+    tableConfig.columns = new String[] {"_id", "name"};
+  }
+
+  @Override
+  protected void onInitMigrations(@NonNull MigrationRegistry registry) {
+    NoteHelper.Setup setup = TagHelper.setup;
+
+    if (setup != null) {
+      setup.onInitMigrations(registry);
+    }
+  }
+
+  @Override
+  public void onCreateDatabase(@NonNull SQLiteDatabase db) {
+    db.execSQL("CREATE TABLE " + TABLE_NAME + " (_id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT);");
+  }
+}
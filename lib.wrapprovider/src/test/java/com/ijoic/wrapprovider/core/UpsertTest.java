@@ -0,0 +1,158 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 唯一键插入或更新-测试
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class UpsertTest {
+
+  @After
+  public void tearDown() {
+    NoteProvider.resetConfig();
+  }
+
+  @Test
+  public void updateKeepsRowIdAndReportsOutcomes() {
+    setConflict(TableConfig.CONFLICT_UPDATE);
+    NoteProvider provider = NoteProvider.create();
+
+    Bundle first = upsert(provider, note("a", "1"), note("b", "2"));
+    assertArrayEquals(new int[] {BaseProviderHelper.UPSERT_INSERTED, BaseProviderHelper.UPSERT_INSERTED},
+      first.getIntArray(BaseProviderHelper.EXTRA_OUTCOMES));
+    long[] firstIds = first.getLongArray(BaseProviderHelper.EXTRA_ROW_IDS);
+
+    Bundle second = upsert(provider, titleOnly("a"), note("c", "3"));
+    assertArrayEquals(new int[] {BaseProviderHelper.UPSERT_UPDATED, BaseProviderHelper.UPSERT_INSERTED},
+      second.getIntArray(BaseProviderHelper.EXTRA_OUTCOMES));
+    assertEquals(firstIds[0], second.getLongArray(BaseProviderHelper.EXTRA_ROW_IDS)[0]);
+
+    // update mode keeps the columns the values leave out.
+    assertEquals(Arrays.asList("a:1", "b:2", "c:3"), queryNotes(provider));
+  }
+
+  @Test
+  public void replaceSwapsRow() {
+    setConflict(TableConfig.CONFLICT_REPLACE);
+    NoteProvider provider = NoteProvider.create();
+
+    long firstId = upsert(provider, note("a", "1")).getLongArray(BaseProviderHelper.EXTRA_ROW_IDS)[0];
+    Bundle result = upsert(provider, titleOnly("a"));
+
+    assertArrayEquals(new int[] {BaseProviderHelper.UPSERT_UPDATED}, result.getIntArray(BaseProviderHelper.EXTRA_OUTCOMES));
+    assertTrue(result.getLongArray(BaseProviderHelper.EXTRA_ROW_IDS)[0] != firstId);
+    assertEquals(Arrays.asList("a:null"), queryNotes(provider));
+  }
+
+  @Test
+  public void missingConflictColumnRollsBack() {
+    setConflict(TableConfig.CONFLICT_UPDATE);
+    NoteProvider provider = NoteProvider.create();
+    ContentValues noKey = new ContentValues();
+    noKey.put("body", "x");
+
+    try {
+      upsert(provider, note("a", "1"), noKey);
+      fail("missing conflict column accepted");
+    } catch (IllegalArgumentException e) {
+      // expected.
+    }
+    assertEquals(0, queryNotes(provider).size());
+  }
+
+  @Test
+  public void bulkUpsertAppliesLastValue() {
+    setConflict(TableConfig.CONFLICT_UPDATE);
+    NoteProvider provider = NoteProvider.create();
+
+    int count = provider.bulkInsert(
+      NoteHelper.CONTENT_URI.buildUpon().appendQueryParameter(BaseProviderHelper.QUERY_PARAMETER_UPSERT, "true").build(),
+      new ContentValues[] {note("a", "1"), note("b", "2"), note("a", "3")}
+    );
+    assertEquals(3, count);
+    assertEquals(Arrays.asList("a:3", "b:2"), queryNotes(provider));
+  }
+
+  @Test
+  public void unconfiguredConflictColumnsRejected() {
+    NoteProvider provider = NoteProvider.create();
+
+    try {
+      upsert(provider, note("a", "1"));
+      fail("upsert without conflict columns accepted");
+    } catch (IllegalStateException e) {
+      // expected.
+    }
+  }
+
+  private static void setConflict(final int resolution) {
+    NoteHelper.setup = new NoteHelper.Setup() {
+      @Override
+      void onInitTableConfig(@NonNull TableConfig tableConfig) {
+        tableConfig.conflictColumns = new String[] {"title"};
+        tableConfig.conflictResolution = resolution;
+      }
+    };
+  }
+
+  private static Bundle upsert(NoteProvider provider, ContentValues... values) {
+    Bundle extras = new Bundle();
+    extras.putParcelableArrayList(BaseProviderHelper.EXTRA_VALUES, new ArrayList<>(Arrays.asList(values)));
+    return provider.call(BaseProviderHelper.METHOD_UPSERT, NoteHelper.CONTENT_URI.toString(), extras);
+  }
+
+  private static ContentValues note(String title, String body) {
+    ContentValues values = titleOnly(title);
+    values.put("body", body);
+    return values;
+  }
+
+  private static ContentValues titleOnly(String title) {
+    ContentValues values = new ContentValues();
+    values.put("title", title);
+    return values;
+  }
+
+  /**
+   * 查询全部笔记
+   *
+   * @return 笔记列表，每项为"标题:正文"
+   */
+  private static ArrayList<String> queryNotes(NoteProvider provider) {
+    Cursor c = provider.query(NoteHelper.CONTENT_URI, new String[] {"title", "body"}, null, null, "title ASC");
+    ArrayList<String> notes = new ArrayList<>();
+
+    try {
+      while (c.moveToNext()) {
+        notes.add(c.getString(0) + ":" + c.getString(1));
+      }
+    } finally {
+      c.close();
+    }
+    return notes;
+  }
+}
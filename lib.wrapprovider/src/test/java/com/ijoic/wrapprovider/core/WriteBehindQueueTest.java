@@ -0,0 +1,181 @@
+package com.ijoic.wrapprovider.core;
+
+import android.content.ContentValues;
+import android.support.annotation.NonNull;
+
+import com.ijoic.wrapprovider.TableConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 延迟写入队列-测试
+ *
+ * @author ijoic 963505345@qq.com
+ * @version 1.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class WriteBehindQueueTest {
+
+  private static final long TIMEOUT_MILLIS = 10000L;
+
+  /**
+   * 多线程经阻塞路径加入队列时，写入屏障返回后本线程加入的数据均已写入
+   */
+  @Test
+  public void flushCoversBlockedOffers() throws Exception {
+    final RecordingWriter writer = new RecordingWriter(null);
+    final WriteBehindQueue queue = new WriteBehindQueue("test", 2, 1, 0L, TableConfig.WRITE_BEHIND_OVERFLOW_BLOCK, writer);
+    final AtomicReference<String> failure = new AtomicReference<>();
+    final int threadCount = 8;
+    final int offersPerThread = 200;
+    Thread[] threads = new Thread[threadCount];
+
+    for (int i = 0; i < threadCount; ++i) {
+      final int threadIndex = i;
+
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < offersPerThread && failure.get() == null; ++j) {
+            long id = threadIndex * offersPerThread + j;
+            if (!queue.offer(createValues(id))) {
+              failure.compareAndSet(null, "row " + id + " not queued");
+            }
+            queue.flush();
+
+            if (!writer.contains(id)) {
+              failure.compareAndSet(null, "flush returned before row " + id + " was written");
+            }
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join(TIMEOUT_MILLIS);
+      assertFalse("offer or flush hangs", thread.isAlive());
+    }
+    assertNull(failure.get());
+    assertEquals(threadCount * offersPerThread, queue.getWrittenCount());
+  }
+
+  /**
+   * 阻塞加入队列被中断时归还计数，写入屏障不会等待未加入队列的数据
+   */
+  @Test
+  public void interruptedOfferReleasesFlush() throws Exception {
+    CountDownLatch gate = new CountDownLatch(1);
+    RecordingWriter writer = new RecordingWriter(gate);
+    final WriteBehindQueue queue = new WriteBehindQueue("test", 1, 1, 0L, TableConfig.WRITE_BEHIND_OVERFLOW_BLOCK, writer);
+
+    // the flusher takes the first row and blocks on the gate, the second row fills the queue.
+    assertTrue(queue.offer(createValues(1)));
+    awaitPendingCount(queue, 0);
+    assertTrue(queue.offer(createValues(2)));
+
+    final AtomicBoolean blockedResult = new AtomicBoolean(true);
+    Thread blocked = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        blockedResult.set(queue.offer(createValues(3)));
+      }
+    });
+    blocked.start();
+    awaitWaiting(blocked);
+
+    Thread flusher = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        queue.flush();
+      }
+    });
+    flusher.start();
+    awaitWaiting(flusher);
+
+    blocked.interrupt();
+    blocked.join(TIMEOUT_MILLIS);
+    assertFalse(blockedResult.get());
+
+    gate.countDown();
+    flusher.join(TIMEOUT_MILLIS);
+    assertFalse("flush waits for an interrupted offer", flusher.isAlive());
+    assertEquals(2, queue.getEnqueuedCount());
+    assertEquals(2, queue.getWrittenCount());
+    assertEquals(1, queue.getDroppedCount());
+    assertFalse(writer.contains(3));
+  }
+
+  private static ContentValues createValues(long id) {
+    ContentValues values = new ContentValues();
+    values.put("_id", id);
+    return values;
+  }
+
+  private static void awaitPendingCount(WriteBehindQueue queue, int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+    while (queue.getPendingCount() != count) {
+      assertTrue("pending count never reached " + count, System.currentTimeMillis() < deadline);
+      Thread.sleep(1L);
+    }
+  }
+
+  private static void awaitWaiting(Thread thread) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+    while (thread.getState() != Thread.State.WAITING) {
+      assertTrue(thread.getName() + " never blocked", System.currentTimeMillis() < deadline);
+      Thread.sleep(1L);
+    }
+  }
+
+  private static final class RecordingWriter implements WriteBehindQueue.Writer {
+    private final Set<Long> written = Collections.synchronizedSet(new HashSet<Long>());
+    private final CountDownLatch gate;
+
+    private RecordingWriter(CountDownLatch gate) {
+      this.gate = gate;
+    }
+
+    @Override
+    public void writeBatch(@NonNull List<ContentValues> batch) {
+      if (gate != null) {
+        try {
+          gate.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      for (ContentValues values : batch) {
+        written.add(values.getAsLong("_id"));
+      }
+    }
+
+    @Override
+    public void writeRow(@NonNull ContentValues values) {
+      written.add(values.getAsLong("_id"));
+    }
+
+    private boolean contains(long id) {
+      return written.contains(id);
+    }
+  }
+}